@@ -0,0 +1,53 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.aspect.PayloadSummarizer;
+import com.cydeo.dto.ResponseWrapper;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.TaskMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+// what LoggingAspect spends on the request thread for the result of a task list endpoint
+// toString: ResponseEntity.toString() as it was logged before, ResponseWrapper has no toString so the body is only ResponseWrapper@hash
+// summarize: type and size only, has to stay flat when the list grows
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AspectLoggingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int taskCount;
+
+    private ResponseEntity<ResponseWrapper> results;
+
+    @Setup
+    public void setUp() {
+        TaskMapper taskMapper = new TaskMapper(new EntityDtoMapperImpl());
+        List<TaskDTO> tasks = LongStream.rangeClosed(1, taskCount)
+                .mapToObj(BenchmarkData::task)
+                .map(taskMapper::convertToDto)
+                .collect(Collectors.toList());
+        results = ResponseEntity.ok(new ResponseWrapper("Tasks are successfully retrieved", tasks, HttpStatus.OK));
+    }
+
+    @Benchmark
+    public String toStringPayload() {
+        return results.toString();
+    }
+
+    @Benchmark
+    public String summarizePayload() {
+        return PayloadSummarizer.summarize(results);
+    }
+
+}
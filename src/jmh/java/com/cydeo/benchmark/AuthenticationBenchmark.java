@@ -0,0 +1,134 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.config.JwtSecurityConfig;
+import com.cydeo.config.KeycloakJwtAuthenticationConverter;
+import com.cydeo.config.KeycloakProperties;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.KeycloakDeploymentBuilder;
+import org.keycloak.adapters.rotation.AdapterTokenVerifier;
+import org.keycloak.representations.AccessToken;
+import org.keycloak.representations.adapters.config.AdapterConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// cost of authenticating one request from its bearer token
+// adapter: keycloak adapter verifies the token and a session is registered for it (RegisterSessionAuthenticationStrategy)
+// jwt: auth.mode=jwt, token is verified with the cached realm key and turned into an authentication, nothing is kept
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    private static final String AUTH_SERVER_URL = "http://localhost:8080/auth";
+    private static final String REALM = "cydeo-dev";
+    private static final String CLIENT = "ticketing-app";
+
+    private String token;
+
+    private KeycloakDeployment deployment;
+    private SessionRegistryImpl sessionRegistry;
+
+    private JwtDecoder jwtDecoder;
+    private KeycloakJwtAuthenticationConverter converter;
+
+    @Setup
+    public void setUp() throws Exception {
+        RSAKey realmKey = new RSAKeyGenerator(2048).keyID("realm-key").generate();
+        token = token(realmKey);
+
+        AdapterConfig adapterConfig = new AdapterConfig();
+        adapterConfig.setAuthServerUrl(AUTH_SERVER_URL);
+        adapterConfig.setRealm(REALM);
+        adapterConfig.setResource(CLIENT);
+        adapterConfig.setBearerOnly(true);
+        adapterConfig.setUseResourceRoleMappings(true);
+        adapterConfig.setRealmKey(Base64.getEncoder().encodeToString(realmKey.toPublicKey().getEncoded()));
+        deployment = new OfflineDeploymentBuilder().internalBuild(adapterConfig);
+        sessionRegistry = new SessionRegistryImpl();
+
+        Path jwksFile = Files.createTempFile("realm-certs", ".json");
+        jwksFile.toFile().deleteOnExit();
+        Files.writeString(jwksFile, new JWKSet(realmKey.toPublicJWK()).toString());
+        KeycloakProperties keycloakProperties = new KeycloakProperties();
+        keycloakProperties.setAuthServerUrl(AUTH_SERVER_URL);
+        keycloakProperties.setRealm(REALM);
+        keycloakProperties.setClientId(CLIENT);
+        keycloakProperties.setJwtJwksFile("file:" + jwksFile);
+        keycloakProperties.setJwtJwksCacheTtl(Duration.ofMinutes(10));
+        jwtDecoder = new JwtSecurityConfig().jwtDecoder(keycloakProperties, new DefaultResourceLoader());
+        converter = new KeycloakJwtAuthenticationConverter(CLIENT);
+    }
+
+    @Benchmark
+    public AccessToken adapter() throws Exception {
+        AccessToken accessToken = AdapterTokenVerifier.verifyToken(token, deployment);
+        // every request without a session cookie gets a new session id
+        sessionRegistry.registerNewSession(UUID.randomUUID().toString(), accessToken.getPreferredUsername());
+        return accessToken;
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken jwt() {
+        return converter.convert(jwtDecoder.decode(token));
+    }
+
+    // the adapter asks the running keycloak for the realm urls once, here they are set without a server
+    private static class OfflineDeploymentBuilder extends KeycloakDeploymentBuilder {
+
+        OfflineDeploymentBuilder() {
+            deployment = new KeycloakDeployment() {
+                @Override
+                protected void resolveUrls() {
+                    realmInfoUrl = AUTH_SERVER_URL + "/realms/" + REALM;
+                }
+            };
+        }
+
+        @Override
+        protected KeycloakDeployment internalBuild(AdapterConfig adapterConfig) {
+            return super.internalBuild(adapterConfig);
+        }
+    }
+
+    private static String token(RSAKey key) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(AUTH_SERVER_URL + "/realms/" + REALM)
+                .subject(UUID.randomUUID().toString())
+                .claim("typ", "Bearer")
+                .claim("azp", CLIENT)
+                .claim("preferred_username", "admin@admin.com")
+                .claim("resource_access", Map.of(CLIENT, Map.of("roles", List.of("Admin"))))
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+}
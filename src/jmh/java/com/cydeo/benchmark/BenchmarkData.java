@@ -0,0 +1,70 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Gender;
+import com.cydeo.enums.Status;
+
+import java.time.LocalDate;
+
+// sample objects with the whole graph filled, like the ones coming out of the repositories
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Task task(long id) {
+        Role employeeRole = role(3L, "Employee");
+        Role managerRole = role(2L, "Manager");
+
+        Project project = new Project();
+        project.setId(id % 50);
+        project.setProjectCode("PR" + (id % 50));
+        project.setProjectName("Project " + (id % 50));
+        project.setProjectDetail("Some details about the project");
+        project.setProjectStatus(Status.IN_PROGRESS);
+        project.setStartDate(LocalDate.of(2022, 1, 5));
+        project.setEndDate(LocalDate.of(2022, 6, 5));
+        project.setAssignedManager(user(2L, "harold@manager.com", managerRole));
+
+        Task task = new Task();
+        task.setId(id);
+        task.setTaskSubject("Task " + id);
+        task.setTaskDetail("Some details about the task");
+        task.setTaskStatus(Status.OPEN);
+        task.setAssignedDate(LocalDate.of(2022, 1, 10));
+        task.setProject(project);
+        task.setAssignedEmployee(user(3L, "john@employee.com", employeeRole));
+        return task;
+    }
+
+    static UserDTO userDTO() {
+        return new UserDTO(4L, "John", "Doe", "john@employee.com", "Abc1", "Abc1", true,
+                "1234567890", new RoleDTO(3L, "Employee"), Gender.MALE);
+    }
+
+    static Role role(long id, String description) {
+        Role role = new Role(description);
+        role.setId(id);
+        return role;
+    }
+
+    private static User user(long id, String userName, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setUserName(userName);
+        user.setPassWord("$2a$10$nAB5j9G1c3JHgg7qzhiIXO7cqqr5oJ3LXRNQJKssDUwHXzDGUztNK");
+        user.setEnabled(true);
+        user.setPhone("1234567890");
+        user.setRole(role);
+        user.setGender(Gender.MALE);
+        return user;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.aspect.LoggingAspect;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// log-heavy load on the aspect logger: 8 request threads writing LoggingAspect lines
+// legacy: the old setup, synchronous RollingFile rolled at 2Kb with a minute file pattern
+// current: log4j2.properties, async logger with ring buffer, RollingRandomAccessFile rolled daily or at 100MB
+// the number of files written is printed at the end of each trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+public class LogThroughputBenchmark {
+
+    @Param({"legacy", "current"})
+    private String config;
+
+    private Path directory;
+    private LoggerContext context;
+    private Logger logger;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("aspect-logs");
+        System.setProperty("LOG_PATH", directory.toString());
+        // own context, the one of the application classpath would write to the same files
+        context = new LoggerContext(config);
+        if ("legacy".equals(config)) {
+            context.start(legacyConfiguration(directory));
+        } else {
+            context.setConfigLocation(LogThroughputBenchmark.class.getResource("/log4j2.properties").toURI());
+            context.start();
+        }
+        logger = context.getLogger(LoggingAspect.class.getName());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        // stops the async logger after the ring buffer is written out
+        context.stop();
+        try (Stream<Path> files = Files.list(directory)) {
+            System.out.println(config + ": " + files.count() + " log files in " + directory);
+        }
+    }
+
+    @Benchmark
+    public void afterReturning() {
+        logger.info("After Returning -> Method: {}, User: {}, Results: {}",
+                "TaskController.getTasks(..)", "harold@manager.com", "200 ResponseWrapper(code=200, data=ArrayList<TaskDTO>[size=100], nextCursor=true)");
+    }
+
+    private static BuiltConfiguration legacyConfiguration(Path directory) {
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.add(builder.newAppender("ROLLINGLOGFILE", "RollingFile")
+                .addAttribute("fileName", directory + "/rolling_app.log")
+                .addAttribute("filePattern", directory + "/rolling_app%d{yyyy-MM-dd HH:mm}.log")
+                .add(builder.newLayout("PatternLayout").addAttribute("pattern", "[%-5level] %d{yyyy-MM-dd HH:mm:ss.SSS} [%t] %c{1} - %msg%n"))
+                .addComponent(builder.newComponent("Policies")
+                        .addComponent(builder.newComponent("SizeBasedTriggeringPolicy").addAttribute("size", "2Kb")))
+                .addComponent(builder.newComponent("DefaultRolloverStrategy")));
+        builder.add(builder.newLogger("com.cydeo.aspect", Level.INFO).add(builder.newAppenderRef("ROLLINGLOGFILE")).addAttribute("additivity", false));
+        builder.add(builder.newRootLogger(Level.WARN));
+        return builder.build();
+    }
+
+}
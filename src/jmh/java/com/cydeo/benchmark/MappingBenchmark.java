@@ -0,0 +1,73 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.MapperUtil;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private TaskMapper taskMapper;
+    private ProjectMapper projectMapper;
+    private UserMapper userMapper;
+    private MapperUtil mapperUtil;
+
+    private Task task;
+    private Project project;
+    private UserDTO userDTO;
+    private Role role;
+
+    @Setup
+    public void setUp() {
+        EntityDtoMapperImpl entityDtoMapper = new EntityDtoMapperImpl();
+        taskMapper = new TaskMapper(entityDtoMapper);
+        projectMapper = new ProjectMapper(entityDtoMapper);
+        userMapper = new UserMapper(entityDtoMapper);
+        mapperUtil = new MapperUtil(new ModelMapper(), entityDtoMapper);
+
+        task = BenchmarkData.task(1L);
+        project = task.getProject();
+        userDTO = BenchmarkData.userDTO();
+        role = BenchmarkData.role(2L, "Manager");
+    }
+
+    @Benchmark
+    public TaskDTO taskConvertToDto() {
+        return taskMapper.convertToDto(task);
+    }
+
+    @Benchmark
+    public ProjectDTO projectConvertToDto() {
+        return projectMapper.convertToDto(project);
+    }
+
+    @Benchmark
+    public User userConvertToEntity() {
+        return userMapper.convertToEntity(userDTO);
+    }
+
+    @Benchmark
+    public RoleDTO mapperUtilConvert() {
+        return mapperUtil.convert(role, new RoleDTO());
+    }
+
+}
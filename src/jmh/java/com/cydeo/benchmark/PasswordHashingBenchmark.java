@@ -0,0 +1,61 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.config.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// how many hashes per second one core and the whole hashing executor give for each bcrypt strength
+// used for choosing password-hashing.bcrypt-strength and password-hashing.max-pending
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    @Param({"4", "8", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder bcrypt;
+    private ExecutorService executor;
+    private BoundedPasswordEncoder boundedEncoder;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        boundedEncoder = new BoundedPasswordEncoder(bcrypt, executor, 1000, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        encoded = bcrypt.encode("Abc1");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public String encode() {
+        return bcrypt.encode("Abc1");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return bcrypt.matches("Abc1", encoded);
+    }
+
+    // many request threads hashing at the same time through the executor
+    @Benchmark
+    @Threads(8)
+    public String boundedEncode() {
+        return boundedEncoder.encode("Abc1");
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.dto.ResponseWrapper;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.TaskMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int taskCount;
+
+    private ObjectMapper objectMapper;
+    private ResponseWrapper responseWrapper;
+
+    @Setup
+    public void setUp() {
+        // same builder spring boot is using for the http message converter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        TaskMapper taskMapper = new TaskMapper(new EntityDtoMapperImpl());
+        List<TaskDTO> tasks = LongStream.rangeClosed(1, taskCount)
+                .mapToObj(BenchmarkData::task)
+                .map(taskMapper::convertToDto)
+                .collect(Collectors.toList());
+        responseWrapper = new ResponseWrapper("Tasks are successfully retrieved", tasks, HttpStatus.OK);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responseWrapper);
+    }
+
+}
@@ -1,13 +1,14 @@
 package com.cydeo.aspect;
 
+import com.cydeo.service.PrincipalService;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
-import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 @Aspect
 @Controller
 @Slf4j // this annotation is going to give logger instance same thing with line 16
@@ -18,38 +19,51 @@ public class LoggingAspect {
     //This is the short way using this logger
     //https://projectlombok.org/features/log in this web page there is same this logger
 
-    private String getUserName() {
+    private final PrincipalService principalService;
+    private final double sampleRate;
+
+    public LoggingAspect(PrincipalService principalService, @Value("${logging-aspect.sample-rate:1.0}") double sampleRate) {
+        this.principalService = principalService;
+        this.sampleRate = sampleRate;
+    }
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        // to get logged in user information
-        SimpleKeycloakAccount userDetails = (SimpleKeycloakAccount) authentication.getDetails();
-        return userDetails.getKeycloakSecurityContext().getToken().getPreferredUsername();
+    private String getUserName() {
         // got username from kycloak
+        return principalService.getUserName();
     }
 
     @Pointcut("execution(* com.cydeo.controller.ProjectController.*(..)) || execution(* com.cydeo.controller.TaskController.*(..)) ")
     public void anyProjectAndTaskControllerPC() {}
 
-    @Before("anyProjectAndTaskControllerPC()")
-    public void beforeAnyProjectAndTaskControllerAdvice(JoinPoint joinPoint) {
-    log.info("Before -> Method: {}, User: {}"
-    , joinPoint.getSignature().toShortString()
-            ,getUserName());
-    }
+    // before and after lines of a call are logged together or not at all, failures are always logged
+    // results are summarized (type and size), the body of a list endpoint can have thousands of dtos
+    // com.cydeo.aspect is an async logger (log4j2.properties), the file is written on the log4j thread
+    @Around("anyProjectAndTaskControllerPC()")
+    public Object aroundAnyProjectAndTaskControllerAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean sampled = log.isInfoEnabled() && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if (sampled) {
+            log.info("Before -> Method: {}, User: {}"
+                    , joinPoint.getSignature().toShortString()
+                    , getUserName());
+        }
 
-    @AfterReturning(pointcut = "anyProjectAndTaskControllerPC()", returning = "results")
-    public void afterAnyProjectAndTaskControllerAdvice(JoinPoint joinPoint, Object results) {
-        log.info("After Returning -> Method: {}, User: {}, Results :{}"
-                , joinPoint.getSignature().toShortString()
-                ,getUserName()
-                , results.toString());
-    }
+        Object results;
+        try {
+            results = joinPoint.proceed();
+        } catch (Exception exception) {
+            log.info("After Throwing -> Method: {}, User: {}, Exception: {}"
+                    , joinPoint.getSignature().toShortString()
+                    , getUserName()
+                    , exception.getMessage());
+            throw exception;
+        }
 
-    @AfterThrowing(pointcut = "anyProjectAndTaskControllerPC()", throwing = "exception")
-    public void afterReturningAnyProjectAndTaskControllerAdvice(JoinPoint joinPoint, Exception exception) {
-        log.info("After Returning -> Method: {}, User: {}, Results :{}"
-                , joinPoint.getSignature().toShortString()
-                ,getUserName()
-                , exception.getMessage());
+        if (sampled) {
+            log.info("After Returning -> Method: {}, User: {}, Results: {}"
+                    , joinPoint.getSignature().toShortString()
+                    , getUserName()
+                    , PayloadSummarizer.summarize(results));
+        }
+        return results;
     }
 }
@@ -0,0 +1,62 @@
+package com.cydeo.aspect;
+
+import com.cydeo.dto.ResponseWrapper;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+// one short line for a controller result instead of toString() of the whole body
+// e.g. 200 ResponseWrapper(code=200, data=ArrayList<TaskDTO>[size=5000], nextCursor=true)
+// only types and sizes are read, the elements themselves are never rendered
+public final class PayloadSummarizer {
+
+    private PayloadSummarizer() {
+    }
+
+    public static String summarize(Object payload) {
+        if (payload == null) {
+            return "null";
+        }
+        if (payload instanceof ResponseEntity) {
+            ResponseEntity<?> responseEntity = (ResponseEntity<?>) payload;
+            return responseEntity.getStatusCodeValue() + " " + summarize(responseEntity.getBody());
+        }
+        if (payload instanceof ResponseWrapper) {
+            ResponseWrapper responseWrapper = (ResponseWrapper) payload;
+            return "ResponseWrapper(code=" + responseWrapper.getCode()
+                    + ", data=" + summarize(responseWrapper.getData())
+                    + ", nextCursor=" + (responseWrapper.getNextCursor() != null) + ")";
+        }
+        if (payload instanceof Collection) {
+            Collection<?> collection = (Collection<?>) payload;
+            return typeName(payload) + elementType(collection.iterator()) + "[size=" + collection.size() + "]";
+        }
+        if (payload instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) payload;
+            return typeName(payload) + "[size=" + map.size() + "]";
+        }
+        if (payload.getClass().isArray()) {
+            return payload.getClass().getComponentType().getSimpleName() + "[size=" + Array.getLength(payload) + "]";
+        }
+        if (payload instanceof CharSequence) {
+            return "String[length=" + ((CharSequence) payload).length() + "]";
+        }
+        return typeName(payload);
+    }
+
+    private static String elementType(Iterator<?> iterator) {
+        if (!iterator.hasNext()) {
+            return "";
+        }
+        Object first = iterator.next();
+        return first == null ? "" : "<" + typeName(first) + ">";
+    }
+
+    private static String typeName(Object object) {
+        return object.getClass().getSimpleName();
+    }
+
+}
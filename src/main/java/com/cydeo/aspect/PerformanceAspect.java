@@ -1,5 +1,7 @@
 package com.cydeo.aspect;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -7,6 +9,8 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 
 // in the interview when she display the this class interviewer  really impressed so popular topic,
 //so you can display this PerformanceAspect Class and custom annotation
@@ -14,7 +18,17 @@ import org.springframework.stereotype.Component;
 @Component
 @Slf4j
 public class PerformanceAspect {
-    @Pointcut("@annotation(com.cydeo.annotation.ExecutionTime)")
+
+    static final String METRIC_NAME = "method.execution";
+
+    private final MeterRegistry meterRegistry;
+
+    public PerformanceAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // @ExecutionTime on the method, or on the class (@within) for all methods of controllers and services
+    @Pointcut("@annotation(com.cydeo.annotation.ExecutionTime) || @within(com.cydeo.annotation.ExecutionTime)")
     public void executionTimePC() {}
 
     /*
@@ -23,24 +37,31 @@ public class PerformanceAspect {
     @GetMapping("/{username}")
      */
 
+    // nanosecond timer, percentiles come from the histogram buckets at /actuator/prometheus
+    // (histogram_quantile(0.99, rate(method_execution_seconds_bucket[5m])))
     @Around("executionTimePC()")
-    public Object aroundAnyExecutionTimeAdvice (ProceedingJoinPoint proceedingJoinPoint) {
-
-        long beforeTime = System.currentTimeMillis(); // give me current time in ml second
-        Object result = null;
-        log.info("Execution starts:");
+    public Object aroundAnyExecutionTimeAdvice(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
 
-        try{
-            result = proceedingJoinPoint.proceed();
-        }catch (Throwable throwable){
-            throwable.printStackTrace();
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return proceedingJoinPoint.proceed();
+        } catch (Throwable throwable) {
+            // only recorded, the caller (GlobalExceptionHandler for controllers) gets the same exception
+            exception = throwable.getClass().getSimpleName();
+            throw throwable;
+        } finally {
+            long duration = System.nanoTime() - start;
+            Timer.builder(METRIC_NAME)
+                    .description("Execution time of @ExecutionTime methods")
+                    .tag("class", proceedingJoinPoint.getTarget().getClass().getSimpleName())
+                    .tag("method", proceedingJoinPoint.getSignature().getName())
+                    .tag("outcome", "none".equals(exception) ? "success" : "error")
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(duration, TimeUnit.NANOSECONDS);
+            log.debug("Time taken to execute: {} ns - Method : {}", duration, proceedingJoinPoint.getSignature().toShortString());
         }
-
-        long afterTime = System.currentTimeMillis();
-        log.info("Time taken to execute: {} ms - Method : {}"
-                , (afterTime-beforeTime), proceedingJoinPoint.getSignature().toShortString());
-
-        return result;
-
     }
 }
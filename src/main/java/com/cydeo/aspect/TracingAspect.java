@@ -0,0 +1,77 @@
+package com.cydeo.aspect;
+
+import com.cydeo.config.TracingFilter;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+// a span for every call into a controller, service, repository or the password encoder (bcrypt)
+// they nest under the request span of TracingFilter, so a slow POST /api/v1/user shows where the time went
+// outermost aspect, the other aspects (logging, timers) run inside the span
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Pointcut("within(com.cydeo.controller..*) || within(com.cydeo.service.impl..*)")
+    public void controllerOrServicePC() {}
+
+    @Pointcut("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public void repositoryPC() {}
+
+    @Pointcut("execution(* org.springframework.security.crypto.password.PasswordEncoder+.*(..))")
+    public void passwordEncoderPC() {}
+
+    @Around("controllerOrServicePC() || repositoryPC() || passwordEncoderPC()")
+    public Object aroundTracedAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+        Span span = tracer.spanBuilder(spanName(joinPoint)).startSpan();
+        // scheduled jobs have no request span, their first span puts the trace id in the logs
+        boolean newTrace = MDC.get(TracingFilter.TRACE_ID) == null;
+        if (newTrace) {
+            MDC.put(TracingFilter.TRACE_ID, span.getSpanContext().getTraceId());
+        }
+        try (Scope ignored = span.makeCurrent()) {
+            return joinPoint.proceed();
+        } catch (Throwable throwable) {
+            span.recordException(throwable);
+            span.setStatus(StatusCode.ERROR);
+            throw throwable;
+        } finally {
+            span.end();
+            if (newTrace) {
+                MDC.remove(TracingFilter.TRACE_ID);
+            }
+        }
+    }
+
+    // UserRepository.findByUserNameAndIsDeleted, the target of a repository is a jdk proxy, its interface has the name
+    private static String spanName(ProceedingJoinPoint joinPoint) {
+        Class<?> type = joinPoint.getTarget().getClass();
+        if (joinPoint.getTarget() instanceof Repository) {
+            type = Arrays.stream(type.getInterfaces())
+                    .filter(Repository.class::isAssignableFrom)
+                    .findFirst()
+                    .orElse(type);
+        }
+        return type.getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+
+}
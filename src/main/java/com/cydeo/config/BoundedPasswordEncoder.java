@@ -0,0 +1,97 @@
+package com.cydeo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// bcrypt is slow on purpose, every encode/matches runs on the hashing executor instead of the tomcat thread
+// at most maxPending hashes are running or waiting, the next caller waits up to maxWait for a free place and is rejected after that
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Semaphore pending;
+    private final Duration maxWait;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ExecutorService executor, int maxPending, Duration maxWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+        this.maxWait = maxWait;
+        this.encodeTimer = meterRegistry.timer("password.hashing", "operation", "encode");
+        this.matchesTimer = meterRegistry.timer("password.hashing", "operation", "matches");
+        this.rejected = meterRegistry.counter("password.hashing.rejected");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return join(encodeAsync(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return join(submit(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    // bulk import hashes many passwords in parallel, it waits here when the executor is full
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hashing, Timer timer) {
+        acquire();
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(hashing), executor)
+                    .whenComplete((result, exception) -> pending.release());
+        } catch (RejectedExecutionException exception) {
+            pending.release();
+            throw exception;
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (!pending.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Password hashing is busy");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for password hashing", exception);
+        }
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) throw (RuntimeException) exception.getCause();
+            throw exception;
+        }
+    }
+
+}
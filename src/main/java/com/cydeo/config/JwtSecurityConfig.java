@@ -0,0 +1,83 @@
+package com.cydeo.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.DefaultJWKSetCache;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+// auth.mode=jwt, stateless: every request is authenticated from its bearer token alone, nothing is kept per token
+// the signature is checked with the realm keys kept in memory, keycloak is only asked for the keys (or never, with a jwks file)
+@Configuration
+@EnableWebSecurity
+@EnableGlobalMethodSecurity(jsr250Enabled = true)
+@ConditionalOnProperty(name = "auth.mode", havingValue = "jwt")
+public class JwtSecurityConfig {
+
+    @Bean
+    public SecurityFilterChain jwtSecurityFilterChain(HttpSecurity http, JwtDecoder jwtDecoder, KeycloakProperties keycloakProperties) throws Exception {
+        http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+        http.authorizeRequests()
+                .anyRequest()
+                .permitAll();   // same as the adapter mode, endpoints are protected with @RolesAllowed
+        http.csrf().disable();
+        http.oauth2ResourceServer()
+                .jwt()
+                .decoder(jwtDecoder)
+                .jwtAuthenticationConverter(new KeycloakJwtAuthenticationConverter(keycloakProperties.getClientId()));
+        return http.build();
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(KeycloakProperties keycloakProperties, ResourceLoader resourceLoader) throws IOException, ParseException {
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource(keycloakProperties, resourceLoader)));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        }); // expiry and issuer are checked by the validator below
+
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(keycloakProperties.getRealmUrl()));
+        return jwtDecoder;
+    }
+
+    private JWKSource<SecurityContext> jwkSource(KeycloakProperties keycloakProperties, ResourceLoader resourceLoader) throws IOException, ParseException {
+
+        // offline runs, keys never change
+        if (StringUtils.hasText(keycloakProperties.getJwtJwksFile())) {
+            try (InputStream inputStream = resourceLoader.getResource(keycloakProperties.getJwtJwksFile()).getInputStream()) {
+                return new ImmutableJWKSet<>(JWKSet.load(inputStream));
+            }
+        }
+
+        long ttl = keycloakProperties.getJwtJwksCacheTtl().toMillis();
+        return new RemoteJWKSet<>(new URL(keycloakProperties.getRealmUrl() + "/protocol/openid-connect/certs"),
+                new DefaultResourceRetriever(5000, 5000),
+                new DefaultJWKSetCache(ttl, ttl, TimeUnit.MILLISECONDS));
+    }
+
+}
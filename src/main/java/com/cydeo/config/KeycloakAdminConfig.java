@@ -0,0 +1,43 @@
+package com.cydeo.config;
+
+import io.opentelemetry.api.trace.Tracer;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.keycloak.OAuth2Constants;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+// Keycloak.getInstance() per call was building a new http client and asking master realm for a new token every time
+// this client lives as long as the application, keeps its connections in a pool and reuses the token until it is about to expire
+@Configuration
+public class KeycloakAdminConfig {
+
+    @Bean(destroyMethod = "close")
+    public Keycloak keycloakAdminClient(KeycloakProperties keycloakProperties, Tracer tracer) {
+
+        ResteasyClientBuilder clientBuilder = new ResteasyClientBuilder()
+                .connectionPoolSize(keycloakProperties.getAdminConnectionPoolSize())
+                .maxPooledPerRoute(keycloakProperties.getAdminConnectionPoolSize())
+                .connectionCheckoutTimeout(keycloakProperties.getAdminConnectionCheckoutTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        clientBuilder.connectTimeout(keycloakProperties.getAdminConnectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        clientBuilder.readTimeout(keycloakProperties.getAdminReadTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        clientBuilder.register(new KeycloakTracingFilter(tracer));
+
+        Keycloak keycloak = KeycloakBuilder.builder()
+                .serverUrl(keycloakProperties.getAuthServerUrl())
+                .realm(keycloakProperties.getMasterRealm())
+                .grantType(OAuth2Constants.PASSWORD)
+                .username(keycloakProperties.getMasterUser())
+                .password(keycloakProperties.getMasterUserPswd())
+                .clientId(keycloakProperties.getMasterClient())
+                .resteasyClient(clientBuilder.build())
+                .build();
+
+        keycloak.tokenManager().setMinTokenValidity(keycloakProperties.getAdminTokenMinValidity().toSeconds());
+        return keycloak;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.cydeo.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// same authorities as the adapter gives with use-resource-role-mappings=true and SimpleAuthorityMapper:
+// resource_access.<client>.roles -> ROLE_<role>, so @RolesAllowed({"Admin"}) works in both modes
+// name of the authentication is the preferred_username, that is what the users table has
+public class KeycloakJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final String clientId;
+
+    public KeycloakJwtAuthenticationConverter(String clientId) {
+        this.clientId = clientId;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        return new JwtAuthenticationToken(jwt, authorities(jwt), jwt.getClaimAsString("preferred_username"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<GrantedAuthority> authorities(Jwt jwt) {
+        Map<String, Object> resourceAccess = jwt.getClaimAsMap("resource_access");
+        if (resourceAccess == null || !(resourceAccess.get(clientId) instanceof Map)) return List.of();
+
+        Object roles = ((Map<String, Object>) resourceAccess.get(clientId)).get("roles");
+        if (!(roles instanceof Collection)) return List.of();
+
+        return ((Collection<Object>) roles).stream()
+                .map(role -> new SimpleGrantedAuthority(ROLE_PREFIX + role))
+                .collect(Collectors.toList());
+    }
+
+}
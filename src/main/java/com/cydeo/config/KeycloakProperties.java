@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
 // when you go to market and when you look the Keycloak Properties class? what dou you think?
 //what is the purpose to create separate class
 //Because in my application in different places in my application we can use this field without
@@ -31,4 +33,28 @@ public class KeycloakProperties {
     @Value("${master.client}")
     private String masterClient;
 
+    // admin client is created once and shared, these are the settings of its http connection pool
+    @Value("${keycloak-admin.connection-pool-size:20}")
+    private int adminConnectionPoolSize;
+    @Value("${keycloak-admin.connect-timeout:5s}")
+    private Duration adminConnectTimeout;
+    @Value("${keycloak-admin.read-timeout:10s}")
+    private Duration adminReadTimeout;
+    @Value("${keycloak-admin.connection-checkout-timeout:5s}")
+    private Duration adminConnectionCheckoutTimeout;
+    // master token is refreshed when it has less than this left, so a call never goes out with an expiring token
+    @Value("${keycloak-admin.token-min-validity:30s}")
+    private Duration adminTokenMinValidity;
+
+    // auth.mode=jwt, realm keys come from this file (file:/... or classpath:...) when it is set, otherwise from the realm certs endpoint
+    @Value("${keycloak-jwt.jwks-file:}")
+    private String jwtJwksFile;
+    // keys from the certs endpoint are used this long, a token with an unknown key id fetches them again right away
+    @Value("${keycloak-jwt.jwks-cache-ttl:10m}")
+    private Duration jwtJwksCacheTtl;
+
+    public String getRealmUrl() {
+        return authServerUrl + "/realms/" + realm;
+    }
+
 }
\ No newline at end of file
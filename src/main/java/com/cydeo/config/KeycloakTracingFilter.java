@@ -0,0 +1,71 @@
+package com.cydeo.config;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import java.util.regex.Pattern;
+
+// one client span for every http call of the keycloak admin client (token, users, clients, roles ...)
+// user creation is four calls, the span of each one shows which of them is slow
+// a call that fails without a response (timeout, connection refused) never reaches the response filter,
+// KeycloakServiceImpl ends its span with failed() instead
+public class KeycloakTracingFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    private static final String SPAN = KeycloakTracingFilter.class.getName() + ".SPAN";
+    // user and client ids in the path, so calls of the same kind have the same span name
+    private static final Pattern ID = Pattern.compile("/[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    // span of the call running on this thread, the admin client calls are synchronous
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final Tracer tracer;
+
+    public KeycloakTracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        String path = ID.matcher(requestContext.getUri().getPath()).replaceAll("/{id}");
+        Span span = tracer.spanBuilder("keycloak " + requestContext.getMethod() + " " + path)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("http.method", requestContext.getMethod())
+                .setAttribute("http.url", requestContext.getUri().toString())
+                .startSpan();
+        requestContext.setProperty(SPAN, span);
+        CURRENT.set(span);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Span span = (Span) requestContext.getProperty(SPAN);
+        CURRENT.remove();
+        if (span == null) {
+            return;
+        }
+        span.setAttribute("http.status_code", responseContext.getStatus());
+        // 409 on user creation is an expected answer when the outbox retries (KeycloakServiceImpl.userCreate)
+        if (responseContext.getStatus() >= 400 && responseContext.getStatus() != 409) {
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    public static void failed(RuntimeException exception) {
+        Span span = CURRENT.get();
+        if (span == null) {
+            return;
+        }
+        CURRENT.remove();
+        span.recordException(exception);
+        span.setStatus(StatusCode.ERROR);
+        span.end();
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.cydeo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// password encoder and the executor it hashes on, bcrypt cost and the size of the executor come from application.properties
+@Configuration
+public class PasswordHashingConfig {
+
+    // executor.queued, executor.active, executor.completed ... metrics with name=passwordHashing show the queue depth
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor(@Value("${password-hashing.threads:0}") int threads, MeterRegistry meterRegistry) {
+        // bcrypt is pure cpu, more threads than cores would not hash faster, 0 means number of cores
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // queue is not bounded here, BoundedPasswordEncoder does not let more than max-pending in
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("password-hashing-"));
+        new ExecutorServiceMetrics(executor, "passwordHashing", List.of()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(ThreadPoolExecutor passwordHashingExecutor, MeterRegistry meterRegistry,
+                                                  @Value("${password-hashing.bcrypt-strength:10}") int strength,
+                                                  @Value("${password-hashing.max-pending:100}") int maxPending,
+                                                  @Value("${password-hashing.max-wait:5s}") Duration maxWait) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), passwordHashingExecutor, maxPending, maxWait, meterRegistry);
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.cydeo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SqlDiagnosticsConfig {
+
+    @Bean
+    public SqlDiagnosticsFilter sqlDiagnosticsFilter(MeterRegistry meterRegistry) {
+        return new SqlDiagnosticsFilter(meterRegistry);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.cydeo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// sql of every request (SqlStatementCounter), recorded per endpoint as http.server.requests.sql.* metrics
+// an endpoint whose statement count grows with the data is an n+1 (max and percentiles at /actuator/prometheus)
+// with the diagnostics profile the counts are also sent back as headers (SqlDiagnosticsResponseAdvice)
+// bean in SqlDiagnosticsConfig, a @Component filter would also be picked up by the @WebMvcTest slices, which have no MeterRegistry
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class SqlDiagnosticsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public SqlDiagnosticsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.start();
+        SqlStatementCounter.Counts counts;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            counts = SqlStatementCounter.stop();
+        }
+        request.setAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE, counts);
+
+        // only requests that reached a controller, 404s and static paths would make a tag per url
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (uri == null) {
+            return;
+        }
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements prepared for one request")
+                .tags("method", request.getMethod(), "uri", uri.toString())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(counts.getStatements());
+        DistributionSummary.builder("http.server.requests.sql.entities")
+                .description("Entities loaded from the database for one request")
+                .tags("method", request.getMethod(), "uri", uri.toString())
+                .register(meterRegistry)
+                .record(counts.getLoadedEntities());
+        Timer.builder("http.server.requests.sql.time")
+                .description("Time spent executing SQL for one request")
+                .tags("method", request.getMethod(), "uri", uri.toString())
+                .register(meterRegistry)
+                .record(counts.getJdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.cydeo.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// --spring.profiles.active=diagnostics: every json response tells how much sql it took
+// headers have to be set before the body is written, so lazy loading during serialization is not in them (it is in the metrics)
+@Profile("diagnostics")
+@ControllerAdvice
+public class SqlDiagnosticsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+        if (counts != null) {
+            response.getHeaders().set("X-SQL-Statements", String.valueOf(counts.getStatements()));
+            response.getHeaders().set("X-SQL-Entities", String.valueOf(counts.getLoadedEntities()));
+            response.getHeaders().set("X-SQL-Time-Ms", String.valueOf(counts.getJdbcNanos() / 1_000_000));
+        }
+        return body;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.cydeo.config;
+
+import lombok.Getter;
+
+// sql done by the current thread between start() and stop(), one http request (SqlDiagnosticsFilter)
+// filled by SqlStatementSessionListener and SqlStatementInterceptor, which hibernate creates itself, so the counts are in a thread local
+public final class SqlStatementCounter {
+
+    // the counts of a finished request, read by the controller tests (support/SqlStatements)
+    public static final String REQUEST_ATTRIBUTE = SqlStatementCounter.class.getName() + ".COUNTS";
+
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    public static void start() {
+        COUNTS.set(new Counts());
+    }
+
+    public static Counts stop() {
+        Counts counts = COUNTS.get();
+        COUNTS.remove();
+        return counts;
+    }
+
+    // null outside of a request (scheduled jobs, async executors)
+    public static Counts current() {
+        return COUNTS.get();
+    }
+
+    @Getter
+    public static class Counts {
+
+        private long statements;
+        private long loadedEntities;
+        private long jdbcNanos;
+
+        void statementPrepared() {
+            statements++;
+        }
+
+        void entityLoaded() {
+            loadedEntities++;
+        }
+
+        void jdbcExecuted(long nanos) {
+            jdbcNanos += nanos;
+        }
+    }
+
+}
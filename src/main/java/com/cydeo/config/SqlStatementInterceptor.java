@@ -0,0 +1,21 @@
+package com.cydeo.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+// one call for every entity hydrated from a result set row (hibernate.session_factory.interceptor in application.properties)
+// rows read into dto projections are not seen here
+public class SqlStatementInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+        if (counts != null) {
+            counts.entityLoaded();
+        }
+        return false;
+    }
+
+}
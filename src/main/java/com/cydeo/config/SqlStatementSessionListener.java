@@ -0,0 +1,46 @@
+package com.cydeo.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+// hibernate makes one for every session (hibernate.session.events.auto in application.properties)
+// counts prepared statements and the time spent executing them, batches included
+public class SqlStatementSessionListener extends BaseSessionEventListener {
+
+    private long executionStart;
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+        if (counts != null) {
+            counts.statementPrepared();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    private void executed() {
+        SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+        if (counts != null) {
+            counts.jdbcExecuted(System.nanoTime() - executionStart);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.cydeo.config;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// spans of a request: TracingFilter (http), TracingAspect (controllers, services, repositories, password hashing)
+// and KeycloakTracingFilter (every call of the keycloak admin client)
+// tracing.exporter=file writes finished spans as otlp json lines to traces.log (log4j2.properties), none keeps them only for the trace ids in the logs
+@Configuration
+public class TracingConfig {
+
+    static final String INSTRUMENTATION_NAME = "com.cydeo.ticketing";
+
+    // close() ends the batch processor, spans that are still waiting are written out
+    @Bean(destroyMethod = "close")
+    public SdkTracerProvider sdkTracerProvider(@Value("${tracing.exporter:file}") String exporter,
+                                               @Value("${tracing.sample-ratio:1.0}") double sampleRatio) {
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "ticketing-app"))))
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(sampleRatio)));
+        if ("file".equals(exporter)) {
+            builder.addSpanProcessor(BatchSpanProcessor.builder(OtlpJsonLoggingSpanExporter.create()).build());
+        }
+        return builder.build();
+    }
+
+    // not registered as the global instance, everything gets it from here
+    @Bean
+    public OpenTelemetry openTelemetry(SdkTracerProvider sdkTracerProvider) {
+        return OpenTelemetrySdk.builder().setTracerProvider(sdkTracerProvider).build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+    // bean here and not @Component, same as SqlDiagnosticsFilter
+    @Bean
+    public TracingFilter tracingFilter(Tracer tracer) {
+        return new TracingFilter(tracer);
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.cydeo.controller;
 
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.CursorPageDTO;
 import com.cydeo.dto.ProjectDTO;
 import com.cydeo.dto.ResponseWrapper;
 import com.cydeo.dto.UserDTO;
@@ -14,6 +16,7 @@ import javax.annotation.security.RolesAllowed;
 import java.util.List;
 
 //if you put @RestController you can return the data to HTTP method
+@ExecutionTime
 @RestController // if you put only @Controller you need to return view
 @RequestMapping("/api/v1/project")  // general endpoints
 @Tag(name="ProjectController", description = "Project API")
@@ -28,13 +31,16 @@ public class ProjectController {
     @GetMapping
     @RolesAllowed({"Manager"})
     @Operation(summary = "Get projects")
-    public ResponseEntity<ResponseWrapper> getProjects() {
+    public ResponseEntity<ResponseWrapper> getProjects(@RequestParam(value = "after", required = false) String after,
+                                                       @RequestParam(value = "limit", defaultValue = "100") int limit) {
 
+        CursorPageDTO<ProjectDTO> page = projectService.listAllProjects(after, limit);
         return ResponseEntity.ok(ResponseWrapper.builder()
                 .message("Projects are successfully retrieved")
                 .success(true)
                 .code(HttpStatus.OK.value())
-                .data(projectService.listAllProjects()).build());
+                .data(page.getData())
+                .nextCursor(page.getNextCursor()).build());
     }
     @GetMapping("{code}")
     @RolesAllowed({"Manager"})
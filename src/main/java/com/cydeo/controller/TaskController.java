@@ -1,5 +1,7 @@
 package com.cydeo.controller;
 
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.CursorPageDTO;
 import com.cydeo.dto.ResponseWrapper;
 import com.cydeo.dto.TaskDTO;
 import com.cydeo.enums.Status;
@@ -7,13 +9,16 @@ import com.cydeo.service.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.security.RolesAllowed;
 import java.util.List;
 
 //if you put @RestController you can return the data to HTTP method
+@ExecutionTime
 @RestController // if you put only @Controller you need to return view
 @RequestMapping("/api/v1/task")  // general endpoints
 @Tag(name="TaskController", description = "Task API")
@@ -28,9 +33,26 @@ public class TaskController {
     @GetMapping
     @RolesAllowed({"Manager"})
     @Operation(summary = "Get tasks")
-    public ResponseEntity<ResponseWrapper> getTasks(){
+    public ResponseEntity<ResponseWrapper> getTasks(@RequestParam(value = "after", required = false) String after,
+                                                    @RequestParam(value = "limit", defaultValue = "100") int limit){
 
-        return ResponseEntity.ok(new ResponseWrapper("Tasks are successfully retrieved", taskService.listAllTasks(), HttpStatus.OK));
+        CursorPageDTO<TaskDTO> page = taskService.listAllTasks(after, limit);
+        return ResponseEntity.ok(ResponseWrapper.builder()
+                .success(true)
+                .message("Tasks are successfully retrieved")
+                .code(HttpStatus.OK.value())
+                .data(page.getData())
+                .nextCursor(page.getNextCursor()).build());
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @RolesAllowed({"Manager"})
+    @Operation(summary = "Export all tasks as newline delimited json")
+    public ResponseEntity<StreamingResponseBody> exportTasks(){
+        // the body is written after the controller returns, task by task, it is not kept in memory
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(taskService::exportAllTasks);
     }
 
     @GetMapping("/{id}")
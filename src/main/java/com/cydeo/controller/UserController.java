@@ -1,30 +1,41 @@
 package com.cydeo.controller;
 
 import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.CursorPageDTO;
 import com.cydeo.dto.ResponseWrapper;
 import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserDeactivationResultDTO;
+import com.cydeo.dto.UserImportReportDTO;
 import com.cydeo.exception.TicketingProjectException;
 import com.cydeo.mapper.MapperUtil;
+import com.cydeo.service.UserImportService;
 import com.cydeo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.security.RolesAllowed;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 //if you put @RestController you can return the data to HTTP method
+@ExecutionTime // every endpoint is timed, see PerformanceAspect
 @RestController // if you put only @Controller you need to return view
 @RequestMapping ("/api/v1/user")  // general endpoints
 @Tag(name="UserController", description = "User API")// for swagger topic // this is make up stuff
 public class UserController {
     private final UserService userService; // all the time we are injecting interface not implementation class
     private final MapperUtil mapperUtil;
+    private final UserImportService userImportService;
 
-    public UserController(UserService userService, MapperUtil mapperUtil) {
+    public UserController(UserService userService, MapperUtil mapperUtil, UserImportService userImportService) {
         this.userService = userService;
         this.mapperUtil = mapperUtil;
+        this.userImportService = userImportService;
     }
     // we want to modify our status code or we might need to pass header to Json, that's why we use ResponseEntity
     // ResponseEntity is generic class we need to provide something class
@@ -32,24 +43,42 @@ public class UserController {
 
     // in the most of the company for all CRUD operation (get something, create, update, delete something is only work with one base endpoint (in the class level))
     ///api/v1/user this endpint will work for all get, put, post, delete
-    @ExecutionTime
     @GetMapping
     @RolesAllowed({"Manager", "Admin"})
     @Operation(summary = "Get users") // for swagger topic
-    public ResponseEntity<ResponseWrapper> getUsers(){
+    public ResponseEntity<ResponseWrapper> getUsers(@RequestParam(value = "after", required = false) String after,
+                                                    @RequestParam(value = "limit", defaultValue = "100") int limit){
        // ResponseWrapper responseWrapper = new ResponseWrapper("All users are retrieved", userService.listAllUsers(), HttpStatus.OK);
         // we can use constructor like above or builder() like below
+        CursorPageDTO<UserDTO> page = userService.listAllUsers(after, limit); // ?after=<nextCursor of previous page>&limit=
         ResponseWrapper responseWrapper = ResponseWrapper.builder()
                 .success(true)
                 .message("All users are retrieved")
                 .code(HttpStatus.OK.value())
-                .data(userService.listAllUsers()).build();
+                .data(page.getData())
+                .nextCursor(page.getNextCursor()).build();
 
        return ResponseEntity.ok(responseWrapper);
     }
+    // finding one person without paging through everybody, q is a prefix of the username, first or last name
+    @GetMapping("/search")
+    @RolesAllowed({"Manager", "Admin"})
+    @Operation(summary = "Search users")
+    public ResponseEntity<ResponseWrapper> searchUsers(@RequestParam(value = "q", defaultValue = "") String query,
+                                                       @RequestParam(value = "after", required = false) String after,
+                                                       @RequestParam(value = "limit", defaultValue = "20") int limit){
+
+        CursorPageDTO<UserDTO> page = userService.search(query, after, limit); // ?q=har&after=<nextCursor of previous page>&limit=
+        return ResponseEntity.ok(ResponseWrapper.builder()
+                .success(true)
+                .message("Users are retrieved")
+                .code(HttpStatus.OK.value())
+                .data(page.getData())
+                .nextCursor(page.getNextCursor()).build());
+    }
+
 //ResponseEntity. ok -- ok means StatusCode in the Postman Response part
     //Http.StatusCode.ok -- ok means we are gonna see the body  also HTTP status
-    @ExecutionTime // for AOP logging topic
     @GetMapping("/{username}")
     @RolesAllowed({"Admin"}) // for keycloak topic
     @Operation(summary = "Get by userName") // for swagger topic
@@ -79,6 +108,30 @@ public class UserController {
                           );
     }
 
+    // bulk import, the body is read as a stream, every row gets its own result in the report
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @RolesAllowed({"Admin"})
+    @Operation(summary = "Import users from csv (firstName,lastName,userName,passWord,phone,role,gender)")
+    public ResponseEntity<ResponseWrapper> importUsersFromCsv(InputStream body) throws IOException {
+        return importResponse(userImportService.importCsv(body));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @RolesAllowed({"Admin"})
+    @Operation(summary = "Import users from a json array")
+    public ResponseEntity<ResponseWrapper> importUsersFromJson(InputStream body) throws IOException {
+        return importResponse(userImportService.importJson(body));
+    }
+
+    private ResponseEntity<ResponseWrapper> importResponse(UserImportReportDTO report) {
+        return ResponseEntity.ok(ResponseWrapper.builder()
+                .success(report.getFailed() == 0)
+                .code(HttpStatus.OK.value())
+                .message(report.getImported() + " of " + report.getTotal() + " users are imported")
+                .data(report)
+                .build());
+    }
+
     @PutMapping("/{userName}") // OZZY  don't put endpoint here.. he use only @RequestBody UserDTO userDTO as a parameter
     @RolesAllowed({"Admin"})
     @Operation(summary = "Update user")
@@ -94,6 +147,23 @@ public class UserController {
                 .data(updatedUser)
                 .build());
     }
+    // many users at once, every username gets its own result, the ones that can not be deleted are skipped
+    @PostMapping("/deactivate")
+    @RolesAllowed({"Admin"})
+    @Operation(summary = "Deactivate users")
+    public ResponseEntity<ResponseWrapper> deactivateUsers(@RequestBody List<String> userNames) {
+
+        List<UserDeactivationResultDTO> results = userService.deactivateAll(userNames);
+        long deactivated = results.stream().filter(UserDeactivationResultDTO::isDeactivated).count();
+
+        return ResponseEntity.ok(ResponseWrapper.builder()
+                .success(deactivated == results.size())
+                .code(HttpStatus.OK.value())
+                .message(deactivated + " of " + results.size() + " users are deactivated")
+                .data(results)
+                .build());
+    }
+
     @DeleteMapping("/{userName}")
     @RolesAllowed({"Admin"})
     @Operation(summary = "Delete user")
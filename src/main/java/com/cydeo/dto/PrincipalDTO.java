@@ -0,0 +1,17 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// the logged-in user as far as the hot paths need it, shared through the principal cache so it is immutable
+@Getter
+@ToString
+@AllArgsConstructor
+public class PrincipalDTO {
+
+    private final Long id;
+    private final String userName;
+    private final String role;
+
+}
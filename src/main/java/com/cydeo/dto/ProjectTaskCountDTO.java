@@ -0,0 +1,17 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one row of the grouped task count query, completed and unfinished counts of one project together
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectTaskCountDTO {
+
+    private Long projectId;
+    private Long completeTaskCounts;
+    private Long unfinishedTaskCounts;
+
+}
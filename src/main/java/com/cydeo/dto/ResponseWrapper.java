@@ -16,6 +16,7 @@ public class ResponseWrapper {
     private String message;
     private Integer code;
     private Object data;
+    private String nextCursor; // only on keyset paginated lists, cursor of the next page
 
     public ResponseWrapper(String message, Object data,HttpStatus httpStatus) {
         this.success = true;
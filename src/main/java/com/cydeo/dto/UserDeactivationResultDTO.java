@@ -0,0 +1,17 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// outcome of one username of a batch deactivation
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDeactivationResultDTO {
+
+    private String userName;
+    private boolean deactivated;
+    private String message;
+
+}
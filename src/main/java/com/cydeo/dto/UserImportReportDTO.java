@@ -0,0 +1,19 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportReportDTO {
+
+    private int total;
+    private int imported;
+    private int failed;
+    private List<UserImportResultDTO> results;
+
+}
@@ -0,0 +1,18 @@
+package com.cydeo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// outcome of one row of a bulk user import, row numbers start from 1 (csv header is not counted)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDTO {
+
+    private int row;
+    private String userName;
+    private boolean imported;
+    private String message;
+
+}
@@ -0,0 +1,62 @@
+package com.cydeo.entity;
+
+import com.cydeo.enums.OutboxOperation;
+import com.cydeo.enums.OutboxStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// a keycloak change waiting to be sent, written in the same transaction as the users row
+// not a BaseEntity, it is never soft deleted and has its own timestamps
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "keycloak_outbox")
+public class KeycloakOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxOperation operation;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    // username at the time of the change, delete renames the users row
+    @Column(nullable = false)
+    private String userName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptDateTime;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime insertDateTime;
+
+    private LocalDateTime processedDateTime;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public KeycloakOutboxEvent(OutboxOperation operation, Long userId, String userName) {
+        this.operation = operation;
+        this.userId = userId;
+        this.userName = userName;
+        this.status = OutboxStatus.PENDING;
+        this.insertDateTime = LocalDateTime.now();
+        this.nextAttemptDateTime = insertDateTime;
+    }
+
+}
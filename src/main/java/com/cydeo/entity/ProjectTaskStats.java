@@ -0,0 +1,33 @@
+package com.cydeo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// task counters of one project, kept up to date by the task service so the dashboard does not scan tasks
+// not a BaseEntity, the row is identified by the project and only changed through increment queries
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "project_task_stats")
+public class ProjectTaskStats {
+
+    @Id
+    @Column(name = "project_id")
+    private Long projectId;
+
+    @Column(nullable = false)
+    private long completeTaskCounts;
+
+    @Column(nullable = false)
+    private long unfinishedTaskCounts;
+
+}
@@ -15,8 +15,18 @@ import java.time.LocalDate;
 @Setter
 @NoArgsConstructor
 @Where(clause = "is_deleted=false")
+// everything TaskMapper walks into TaskDTO, fetched with the tasks in one select instead of lazy loading per row
+@NamedEntityGraph(name = Task.WITH_PROJECT_AND_EMPLOYEE,
+        attributeNodes = {
+                @NamedAttributeNode(value = "project", subgraph = "project"),
+                @NamedAttributeNode(value = "assignedEmployee", subgraph = "user")},
+        subgraphs = {
+                @NamedSubgraph(name = "project", attributeNodes = @NamedAttributeNode(value = "assignedManager", subgraph = "user")),
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role"))})
 public class Task extends BaseEntity{
 
+    public static final String WITH_PROJECT_AND_EMPLOYEE = "Task.withProjectAndEmployee";
+
     private String taskSubject;
     private String taskDetail;
 
@@ -0,0 +1,7 @@
+package com.cydeo.enums;
+
+public enum OutboxOperation {
+
+    CREATE_USER, DELETE_USER
+
+}
@@ -14,6 +14,7 @@ import org.springframework.web.method.HandlerMethod;
 
 import java.lang.reflect.Method;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 // THis is class which is used all  @ExceptionHandler
 @RestControllerAdvice
@@ -31,6 +32,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ResponseWrapper.builder().success(false).code(HttpStatus.FORBIDDEN.value()).message(message).build(),HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ResponseWrapper> invalidCursorException(InvalidCursorException se){
+        String message = se.getMessage();
+        return new ResponseEntity<>(ResponseWrapper.builder().success(false).code(HttpStatus.BAD_REQUEST.value()).message(message).build(),HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ResponseWrapper> invalidImportFileException(InvalidImportFileException se){
+        String message = se.getMessage();
+        return new ResponseEntity<>(ResponseWrapper.builder().success(false).code(HttpStatus.BAD_REQUEST.value()).message(message).build(),HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)// password hashing is full, client can try again a bit later
+    public ResponseEntity<ResponseWrapper> rejectedExecutionException(RejectedExecutionException se){
+        String message = se.getMessage();
+        return new ResponseEntity<>(ResponseWrapper.builder().success(false).code(HttpStatus.SERVICE_UNAVAILABLE.value()).message(message).build(),HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler({Exception    .class, RuntimeException.class, Throwable.class, BadCredentialsException.class}) // but not ticketing or accessdenied
     public ResponseEntity<ResponseWrapper> genericException(Throwable e, HandlerMethod handlerMethod) {
 
@@ -0,0 +1,9 @@
+package com.cydeo.exception;
+
+// unchecked, a broken pagination cursor is a client error and can come from any list endpoint
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.cydeo.exception;
+
+// unchecked, an import file that can not be read at all is a client error, problems of single rows go to the import report
+public class InvalidImportFileException extends RuntimeException {
+
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+
+    public InvalidImportFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
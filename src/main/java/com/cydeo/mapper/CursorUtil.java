@@ -0,0 +1,57 @@
+package com.cydeo.mapper;
+
+import com.cydeo.exception.InvalidCursorException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+// cursor token is the sort key of the last row of a page, opaque for the client
+@Component
+public class CursorUtil {
+
+    private static final String SEPARATOR = ",";
+    private static final int MAX_LIMIT = 500;
+
+    // the offset is always 0, the cursor condition in the query is doing the skipping
+    public Pageable limit(int limit) {
+        return PageRequest.of(0, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    public String encode(Object... keys) {
+        String joined = Arrays.stream(keys)
+                .map(key -> URLEncoder.encode(String.valueOf(key), StandardCharsets.UTF_8))
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String[] decode(String cursor, int keyCount) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = joined.split(SEPARATOR, -1);
+            if (keys.length != keyCount) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return Arrays.stream(keys)
+                    .map(key -> URLDecoder.decode(key, StandardCharsets.UTF_8))
+                    .toArray(String[]::new);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+
+    public Long toLong(String key) {
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.cydeo.mapper;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+// implementation is generated by mapstruct while compiling (target/generated-sources), plain getter/setter copies
+// instead of the reflection ModelMapper is doing on every call
+// fields one side doesn't have (audit columns, confirmPassWord, task counts) are left as they are, same as with ModelMapper
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface EntityDtoMapper {
+
+    TaskDTO toTaskDto(Task entity);
+    Task toTask(TaskDTO dto);
+
+    ProjectDTO toProjectDto(Project entity);
+    Project toProject(ProjectDTO dto);
+
+    UserDTO toUserDto(User entity);
+    User toUser(UserDTO dto);
+
+    RoleDTO toRoleDto(Role entity);
+    Role toRole(RoleDTO dto);
+
+}
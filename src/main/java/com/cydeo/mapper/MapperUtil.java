@@ -1,21 +1,49 @@
 package com.cydeo.mapper;
 
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Type;
+import java.util.List;
+import java.util.function.Function;
 
 @Component
 public class MapperUtil {
 
     private final ModelMapper modelMapper;
+    private final List<Conversion<?, ?>> conversions;
 
-    public MapperUtil(ModelMapper modelMapper) {
+    public MapperUtil(ModelMapper modelMapper, EntityDtoMapper entityDtoMapper) {
         this.modelMapper = modelMapper;
+        this.conversions = List.of(
+                new Conversion<>(Task.class, TaskDTO.class, entityDtoMapper::toTaskDto),
+                new Conversion<>(TaskDTO.class, Task.class, entityDtoMapper::toTask),
+                new Conversion<>(Project.class, ProjectDTO.class, entityDtoMapper::toProjectDto),
+                new Conversion<>(ProjectDTO.class, Project.class, entityDtoMapper::toProject),
+                new Conversion<>(User.class, UserDTO.class, entityDtoMapper::toUserDto),
+                new Conversion<>(UserDTO.class, User.class, entityDtoMapper::toUser),
+                new Conversion<>(Role.class, RoleDTO.class, entityDtoMapper::toRoleDto),
+                new Conversion<>(RoleDTO.class, Role.class, entityDtoMapper::toRole));
     }
 
-    // Some comments to explain what it does.
+    // Converts the object to the type of convertedObject (only its class is used).
+    // Entity/DTO pairs go through the generated mapper, anything else falls back to ModelMapper.
+    @SuppressWarnings("unchecked")
     public <T> T convert(Object objectToBeConverted, T convertedObject) {
+        for (Conversion<?, ?> conversion : conversions) {
+            // isInstance and not getClass(), lazy loaded entities are hibernate proxy subclasses
+            if (conversion.source.isInstance(objectToBeConverted) && conversion.target == convertedObject.getClass()) {
+                return (T) conversion.apply(objectToBeConverted);
+            }
+        }
         return modelMapper.map(objectToBeConverted, (Type) convertedObject.getClass());
     }
 
@@ -23,4 +51,21 @@ public class MapperUtil {
 //        return modelMapper.map(objectToBeConverted, convertedObject);
 //    }
 
+    private static class Conversion<S, T> {
+
+        private final Class<S> source;
+        private final Class<T> target;
+        private final Function<S, T> function;
+
+        private Conversion(Class<S> source, Class<T> target, Function<S, T> function) {
+            this.source = source;
+            this.target = target;
+            this.function = function;
+        }
+
+        private T apply(Object object) {
+            return function.apply(source.cast(object));
+        }
+    }
+
 }
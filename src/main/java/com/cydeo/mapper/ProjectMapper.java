@@ -2,26 +2,25 @@ package com.cydeo.mapper;
 
 import com.cydeo.dto.ProjectDTO;
 import com.cydeo.entity.Project;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ProjectMapper {
 
-    private final ModelMapper modelMapper;
+    private final EntityDtoMapper entityDtoMapper;
 
-    public ProjectMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
+    public ProjectMapper(EntityDtoMapper entityDtoMapper) {
+        this.entityDtoMapper = entityDtoMapper;
     }
 
     public Project convertToEntity(ProjectDTO dto){
-        return modelMapper.map(dto,Project.class);
+        return entityDtoMapper.toProject(dto);
 
     }
 
     public ProjectDTO convertToDto(Project entity){
 
-        return modelMapper.map(entity,ProjectDTO.class);
+        return entityDtoMapper.toProjectDto(entity);
     }
 
 }
@@ -2,24 +2,23 @@ package com.cydeo.mapper;
 
 import com.cydeo.dto.RoleDTO;
 import com.cydeo.entity.Role;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 @Component
 public class RoleMapper {
 
-    private ModelMapper modelMapper;
+    private EntityDtoMapper entityDtoMapper;
 
-    public RoleMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
+    public RoleMapper(EntityDtoMapper entityDtoMapper) {
+        this.entityDtoMapper = entityDtoMapper;
     }
 
     public Role convertToEntity(RoleDTO dto){
-        return modelMapper.map(dto,Role.class);
+        return entityDtoMapper.toRole(dto);
     }
 
     public RoleDTO convertToDto(Role entity){
-        return modelMapper.map(entity,RoleDTO.class);
+        return entityDtoMapper.toRoleDto(entity);
     }
 
 }
@@ -2,23 +2,22 @@ package com.cydeo.mapper;
 
 import com.cydeo.dto.TaskDTO;
 import com.cydeo.entity.Task;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TaskMapper {
 
-    private final  ModelMapper modelMapper;
+    private final EntityDtoMapper entityDtoMapper;
 
-    public TaskMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
+    public TaskMapper(EntityDtoMapper entityDtoMapper) {
+        this.entityDtoMapper = entityDtoMapper;
     }
 
     public Task convertToEntity(TaskDTO dto){
-        return modelMapper.map(dto,Task.class);
+        return entityDtoMapper.toTask(dto);
     }
 
     public TaskDTO convertToDto(Task entity){
-        return modelMapper.map(entity,TaskDTO.class);
+        return entityDtoMapper.toTaskDto(entity);
     }
 }
@@ -2,25 +2,24 @@ package com.cydeo.mapper;
 
 import com.cydeo.dto.UserDTO;
 import com.cydeo.entity.User;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UserMapper {
 
-    private final ModelMapper modelMapper;
+    private final EntityDtoMapper entityDtoMapper;
 
-    public UserMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
+    public UserMapper(EntityDtoMapper entityDtoMapper) {
+        this.entityDtoMapper = entityDtoMapper;
     }
 
     public User convertToEntity(UserDTO dto){
-        return modelMapper.map(dto,User.class);
+        return entityDtoMapper.toUser(dto);
 
     }
 
     public UserDTO convertToDto(User entity){
-        return modelMapper.map(entity,UserDTO.class);
+        return entityDtoMapper.toUserDto(entity);
     }
 
 }
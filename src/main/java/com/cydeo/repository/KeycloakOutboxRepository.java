@@ -0,0 +1,20 @@
+package com.cydeo.repository;
+
+import com.cydeo.entity.KeycloakOutboxEvent;
+import com.cydeo.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface KeycloakOutboxRepository extends JpaRepository<KeycloakOutboxEvent, Long> {
+
+    List<KeycloakOutboxEvent> findAllByStatusAndNextAttemptDateTimeLessThanEqualOrderByIdAsc(OutboxStatus status, LocalDateTime now, Pageable pageable);
+
+    // changes of one user are sent in the order they were made
+    boolean existsByUserIdAndStatusAndIdLessThan(Long userId, OutboxStatus status, Long id);
+
+    long countByStatus(OutboxStatus status);
+
+}
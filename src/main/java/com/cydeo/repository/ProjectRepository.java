@@ -3,14 +3,31 @@ package com.cydeo.repository;
 import com.cydeo.entity.Project;
 import com.cydeo.entity.User;
 import com.cydeo.enums.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProjectRepository extends JpaRepository<Project,Long> {
 
     Project findByProjectCode(String code);
     List<Project> findAllByAssignedManager(User manager);
+    List<Project> findAllByAssignedManagerId(Long managerId);
     List<Project> findAllByProjectStatusIsNotAndAssignedManager(Status status, User assignedManager);
 
+    // deletability checks only need to know if there is any, not the projects themselves
+    boolean existsByProjectStatusIsNotAndAssignedManagerId(Status status, Long managerId);
+
+    @Query("SELECT DISTINCT p.assignedManager.id FROM Project p WHERE p.projectStatus <> ?1 AND p.assignedManager.id IN ?2")
+    List<Long> findAllAssignedManagerIdsByProjectStatusIsNot(Status status, Collection<Long> managerIds);
+
+    // keyset pagination, project code is unique so it is enough as the key
+    // manager and its role are in the dto, fetched in the same select instead of one select per manager
+    @EntityGraph(attributePaths = {"assignedManager", "assignedManager.role"})
+    Slice<Project> findAllByProjectCodeGreaterThanOrderByProjectCodeAsc(String projectCode, Pageable pageable);
+
 }
@@ -0,0 +1,33 @@
+package com.cydeo.repository;
+
+import com.cydeo.entity.ProjectTaskStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.transaction.Transactional;
+
+public interface ProjectTaskStatsRepository extends JpaRepository<ProjectTaskStats, Long> {
+
+    // counters are changed in the database, so two requests touching the same project don't overwrite each other
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProjectTaskStats s SET s.completeTaskCounts = s.completeTaskCounts + ?2, " +
+            "s.unfinishedTaskCounts = s.unfinishedTaskCounts + ?3 WHERE s.projectId = ?1")
+    int increment(Long projectId, long completeDelta, long unfinishedDelta);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProjectTaskStats s SET s.completeTaskCounts = s.completeTaskCounts + s.unfinishedTaskCounts, " +
+            "s.unfinishedTaskCounts = 0 WHERE s.projectId = ?1")
+    int completeAll(Long projectId);
+
+    // first counters of a project, a row another transaction inserted meanwhile is kept and 0 is returned
+    // (primary key is the only unique constraint, so no conflict target is needed, h2 doesn't support one)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO project_task_stats (project_id, complete_task_counts, unfinished_task_counts) " +
+            "VALUES (?1, ?2, ?3) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(Long projectId, long completeTaskCounts, long unfinishedTaskCounts);
+
+}
@@ -1,29 +1,93 @@
 package com.cydeo.repository;
 
+import com.cydeo.dto.ProjectTaskCountDTO;
 import com.cydeo.entity.Project;
 import com.cydeo.entity.Task;
 import com.cydeo.entity.User;
 import com.cydeo.enums.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface TaskRepository extends JpaRepository<Task,Long> {
 
 
-    @Query("SELECT COUNT(t) FROM Task t WHERE t.project.projectCode = ?1 AND t.taskStatus <> 'COMPLETE'")
-    int totalNonCompletedTasks(String projectCode);
+    // one pass over tasks grouped by project, completed and unfinished counts together
+    @Query("SELECT new com.cydeo.dto.ProjectTaskCountDTO(t.project.id, " +
+            "SUM(CASE WHEN t.taskStatus = com.cydeo.enums.Status.COMPLETE THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.taskStatus <> com.cydeo.enums.Status.COMPLETE THEN 1L ELSE 0L END)) " +
+            "FROM Task t GROUP BY t.project.id")
+    List<ProjectTaskCountDTO> totalTaskCountsGroupByProject();
 
-    @Query(value = "SELECT COUNT(*) " +
-            "FROM tasks t JOIN projects p on t.project_id=p.id " +
-            "WHERE p.project_code=?1 AND t.task_status='COMPLETE'", nativeQuery = true)
-    int totalCompletedTasks(String projectCode);
+    @Query("SELECT new com.cydeo.dto.ProjectTaskCountDTO(t.project.id, " +
+            "SUM(CASE WHEN t.taskStatus = com.cydeo.enums.Status.COMPLETE THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.taskStatus <> com.cydeo.enums.Status.COMPLETE THEN 1L ELSE 0L END)) " +
+            "FROM Task t WHERE t.project.id = ?1 GROUP BY t.project.id")
+    Optional<ProjectTaskCountDTO> totalTaskCountsByProject(Long projectId);
 
     List<Task> findAllByProject(Project project);
 
+    @Override
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
+    List<Task> findAll();
+
+    // keyset pagination, the page starts right after the last id of the previous page
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
+    Slice<Task> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // rows come from an open cursor in chunks of the fetch size instead of one big list, needs a transaction around it
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT t FROM Task t ORDER BY t.id")
+    Stream<Task> streamAll();
+
+    // one statement for the whole project, bulk updates skip @PreUpdate so the audit columns are set here
+    // pending changes (the project of ProjectServiceImpl) are flushed first, clearing would drop them otherwise
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.isDeleted = true, t.lastUpdateDateTime = ?2, t.lastUpdateUserId = ?3 " +
+            "WHERE t.project.id = ?1 AND t.isDeleted = false")
+    int softDeleteAllByProject(Long projectId, LocalDateTime lastUpdateDateTime, Long lastUpdateUserId);
+
+    // the completed project is flushed before, same as above
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.taskStatus = com.cydeo.enums.Status.COMPLETE, t.lastUpdateDateTime = ?2, t.lastUpdateUserId = ?3 " +
+            "WHERE t.project.id = ?1 AND t.isDeleted = false AND t.taskStatus <> com.cydeo.enums.Status.COMPLETE")
+    int completeAllByProject(Long projectId, LocalDateTime lastUpdateDateTime, Long lastUpdateUserId);
+
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
     List<Task> findAllByTaskStatusIsNotAndAssignedEmployee(Status status, User user);
 
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
     List<Task> findAllByTaskStatusAndAssignedEmployee(Status status, User user);
 
+    // logged-in user only comes with its id from the principal cache
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
+    List<Task> findAllByTaskStatusIsNotAndAssignedEmployeeId(Status status, Long userId);
+
+    @EntityGraph(Task.WITH_PROJECT_AND_EMPLOYEE)
+    List<Task> findAllByTaskStatusAndAssignedEmployeeId(Status status, Long userId);
+
+    // deletability checks only need to know if there is any, not the tasks themselves
+    boolean existsByTaskStatusIsNotAndAssignedEmployeeId(Status status, Long userId);
+
+    @Query("SELECT DISTINCT t.assignedEmployee.id FROM Task t WHERE t.taskStatus <> ?1 AND t.assignedEmployee.id IN ?2")
+    List<Long> findAllAssignedEmployeeIdsByTaskStatusIsNot(Status status, Collection<Long> userIds);
+
 }
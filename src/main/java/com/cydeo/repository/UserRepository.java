@@ -1,10 +1,18 @@
 package com.cydeo.repository;
 
+import com.cydeo.dto.PrincipalDTO;
 import com.cydeo.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User,Long> {
 
@@ -12,10 +20,54 @@ public interface UserRepository extends JpaRepository<User,Long> {
 
     User findByUserNameAndIsDeleted(String username, Boolean deleted);
 
+    // usernames that are already taken, bulk import checks a whole batch with one query
+    @Query("SELECT u.userName FROM User u WHERE u.userName IN ?1")
+    List<String> findAllUserNamesIn(Collection<String> userNames);
+
+    @Query("SELECT new com.cydeo.dto.PrincipalDTO(u.id, u.userName, r.description) " +
+            "FROM User u JOIN u.role r WHERE u.userName = ?1 AND u.isDeleted = false")
+    Optional<PrincipalDTO> findPrincipalByUserName(String username);
+
+    // keyset pagination, first name is not unique so id breaks the ties
+    // first name is nullable, users without one are paged as '' (at the end), a null key would never match the cursor condition
+    // role comes in the same query for the dto, otherwise there is a select per role on the page
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role WHERE u.isDeleted = ?1 ORDER BY COALESCE(u.firstName, '') DESC, u.id DESC")
+    Slice<User> findFirstPageByIsDeleted(Boolean deleted, Pageable pageable);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role WHERE u.isDeleted = ?1 " +
+            "AND (COALESCE(u.firstName, '') < ?2 OR (COALESCE(u.firstName, '') = ?2 AND u.id < ?3)) " +
+            "ORDER BY COALESCE(u.firstName, '') DESC, u.id DESC")
+    Slice<User> findAllByIsDeletedAfter(Boolean deleted, String firstName, Long id, Pageable pageable);
+
+    // user search, pattern is the lower case prefix with % at the end, each column has a lower(...) index (V4 migration)
+    // username is unique so it is enough for the cursor, role comes in the same query for the dto
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role WHERE u.isDeleted = false " +
+            "AND (LOWER(u.userName) LIKE ?1 ESCAPE '\\' OR LOWER(u.firstName) LIKE ?1 ESCAPE '\\' OR LOWER(u.lastName) LIKE ?1 ESCAPE '\\') " +
+            "ORDER BY u.userName")
+    Slice<User> searchByPrefix(String pattern, Pageable pageable);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role WHERE u.isDeleted = false AND u.userName > ?2 " +
+            "AND (LOWER(u.userName) LIKE ?1 ESCAPE '\\' OR LOWER(u.firstName) LIKE ?1 ESCAPE '\\' OR LOWER(u.lastName) LIKE ?1 ESCAPE '\\') " +
+            "ORDER BY u.userName")
+    Slice<User> searchByPrefixAfter(String pattern, String userName, Pageable pageable);
+
 
     @Transactional
     void deleteByUserName(String username);
 
-    List<User> findByRoleDescriptionIgnoreCaseAndIsDeleted(String description, Boolean deleted);
+    // batch deactivation, role comes in the same query because the deletability check depends on it
+    @Query("SELECT u FROM User u JOIN FETCH u.role WHERE u.userName IN ?1 AND u.isDeleted = false")
+    List<User> findAllWithRoleByUserNameIn(Collection<String> userNames);
+
+    // same as deleting one by one: flag is set and username gets the id at the end, so it can be used again (harold@manager.com-2)
+    // one statement for all of them, bulk updates skip @PreUpdate so the audit columns are set here
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE User u SET u.isDeleted = true, u.userName = CONCAT(u.userName, '-', CAST(u.id AS string)), " +
+            "u.lastUpdateDateTime = ?2, u.lastUpdateUserId = ?3 WHERE u.id IN ?1 AND u.isDeleted = false")
+    int softDeleteAllByIdIn(Collection<Long> ids, LocalDateTime lastUpdateDateTime, Long lastUpdateUserId);
+
+    // role is resolved from the role cache, so filtering on the foreign key avoids the join to roles
+    List<User> findAllByRoleIdAndIsDeleted(Long roleId, Boolean deleted);
 
 }
@@ -0,0 +1,17 @@
+package com.cydeo.service;
+
+import com.cydeo.entity.User;
+
+import java.util.List;
+import java.util.Map;
+
+//user changes are written to the outbox with the users row, and sent to keycloak in the background
+public interface KeycloakOutboxService {
+
+    void enqueueCreate(User user);
+    void enqueueCreateAll(List<User> users);
+    void enqueueDelete(User user, String username);
+    void enqueueDeleteAll(Map<Long, String> userNamesById);
+    int dispatch();
+
+}
@@ -0,0 +1,11 @@
+package com.cydeo.service;
+
+import com.cydeo.dto.PrincipalDTO;
+
+public interface PrincipalService {
+
+    String getUserName();
+    PrincipalDTO getLoggedInUser();
+    void evict(String username);
+
+}
@@ -1,14 +1,18 @@
 package com.cydeo.service;
 
+import com.cydeo.dto.CursorPageDTO;
 import com.cydeo.dto.ProjectDTO;
 import com.cydeo.dto.UserDTO;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface ProjectService {
 
     ProjectDTO getByProjectCode(String code);
     List<ProjectDTO> listAllProjects();
+    CursorPageDTO<ProjectDTO> listAllProjects(String after, int limit);
     void save(ProjectDTO dto);
     void update(ProjectDTO dto);
     void delete(String code);
@@ -16,5 +20,7 @@ public interface ProjectService {
     List<ProjectDTO> listAllProjectDetails();
 
     List<ProjectDTO> listAllNonCompletedByAssignedManager(UserDTO assignedManager);
+    boolean existsNonCompletedByAssignedManager(Long managerId);
+    Set<Long> findAllManagersWithNonCompletedProjects(Collection<Long> managerIds);
 
 }
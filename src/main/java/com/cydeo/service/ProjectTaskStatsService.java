@@ -0,0 +1,19 @@
+package com.cydeo.service;
+
+import com.cydeo.dto.ProjectTaskCountDTO;
+import com.cydeo.enums.Status;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProjectTaskStatsService {
+
+    void increment(Long projectId, Status status, int delta);
+    void completeAll(Long projectId);
+    void reset(Long projectId);
+
+    Map<Long, ProjectTaskCountDTO> findAllByProjectIds(Collection<Long> projectIds);
+
+    int rebuild();
+
+}
@@ -8,4 +8,6 @@ public interface RoleService {
 
     List<RoleDTO> listAllRoles();
     RoleDTO findById(Long id);
+    RoleDTO findByDescription(String description);
+    void refresh();
 }
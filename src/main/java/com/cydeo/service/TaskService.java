@@ -1,31 +1,36 @@
 package com.cydeo.service;
 
-import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.CursorPageDTO;
 import com.cydeo.dto.TaskDTO;
 import com.cydeo.dto.UserDTO;
 import com.cydeo.enums.Status;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface TaskService {
 
     TaskDTO findById(Long id);
     List<TaskDTO> listAllTasks();
+    CursorPageDTO<TaskDTO> listAllTasks(String after, int limit);
+    void exportAllTasks(OutputStream outputStream) throws IOException;
 
     void save(TaskDTO dto);
     void update(TaskDTO dto);
     void delete(Long id);
 
-    int totalNonCompletedTask(String projectCode);
-    int totalCompletedTask(String projectCode);
+    int deleteByProject(Long projectId);
 
-    void deleteByProject(ProjectDTO projectDTO);
-
-    void completeByProject(ProjectDTO projectDTO);
+    int completeByProject(Long projectId);
 
     List<TaskDTO> listAllTasksByStatusIsNot(Status status);
     List<TaskDTO> listAllTasksByStatus(Status status);
 
     List<TaskDTO> listAllNonCompletedByAssignedEmployee(UserDTO assignedEmployee);
+    boolean existsNonCompletedByAssignedEmployee(Long employeeId);
+    Set<Long> findAllEmployeesWithNonCompletedTasks(Collection<Long> employeeIds);
 
 }
@@ -0,0 +1,15 @@
+package com.cydeo.service;
+
+import com.cydeo.dto.UserImportReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+
+    // header: firstName,lastName,userName,passWord,phone,role,gender
+    UserImportReportDTO importCsv(InputStream inputStream) throws IOException;
+    // json array of users, like the body of POST /api/v1/user
+    UserImportReportDTO importJson(InputStream inputStream) throws IOException;
+
+}
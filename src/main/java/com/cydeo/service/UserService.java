@@ -1,7 +1,9 @@
 package com.cydeo.service;
 
 
+import com.cydeo.dto.CursorPageDTO;
 import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserDeactivationResultDTO;
 import com.cydeo.exception.TicketingProjectException;
 
 import java.util.List;
@@ -10,10 +12,13 @@ public interface UserService  {
 
     UserDTO findByUserName(String username);
     List<UserDTO> listAllUsers();
+    CursorPageDTO<UserDTO> listAllUsers(String after, int limit);
+    CursorPageDTO<UserDTO> search(String query, String after, int limit);
     UserDTO save(UserDTO user);
 //    void deleteByUserName(String username);
     UserDTO update(UserDTO user);
     void delete(String username) throws TicketingProjectException;
+    List<UserDeactivationResultDTO> deactivateAll(List<String> usernames);
     List<UserDTO> listAllByRole(String role);
 
 }
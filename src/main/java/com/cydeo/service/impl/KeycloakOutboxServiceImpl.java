@@ -0,0 +1,202 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.entity.KeycloakOutboxEvent;
+import com.cydeo.entity.User;
+import com.cydeo.enums.OutboxOperation;
+import com.cydeo.enums.OutboxStatus;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.repository.KeycloakOutboxRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.KeycloakOutboxService;
+import com.cydeo.service.KeycloakService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ExecutionTime
+@Service
+@Slf4j
+public class KeycloakOutboxServiceImpl implements KeycloakOutboxService {
+
+    private final KeycloakOutboxRepository keycloakOutboxRepository;
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final KeycloakService keycloakService;
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    public KeycloakOutboxServiceImpl(KeycloakOutboxRepository keycloakOutboxRepository, UserRepository userRepository,
+                                     UserMapper userMapper, KeycloakService keycloakService, MeterRegistry meterRegistry, JdbcTemplate jdbcTemplate,
+                                     @Value("${keycloak-outbox.batch-size:50}") int batchSize,
+                                     @Value("${keycloak-outbox.max-attempts:10}") int maxAttempts,
+                                     @Value("${keycloak-outbox.retry-backoff:10s}") Duration retryBackoff,
+                                     @Value("${keycloak-outbox.max-retry-backoff:30m}") Duration maxRetryBackoff) {
+        this.keycloakOutboxRepository = keycloakOutboxRepository;
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.keycloakService = keycloakService;
+        this.meterRegistry = meterRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        meterRegistry.gauge("keycloak.outbox.pending", pendingEvents);
+    }
+
+    // joins the transaction of the caller, the event is only there if the users row is
+    @Override
+    @Transactional
+    public void enqueueCreate(User user) {
+        keycloakOutboxRepository.save(new KeycloakOutboxEvent(OutboxOperation.CREATE_USER, user.getId(), user.getUserName()));
+    }
+
+    // bulk import, one jdbc batch instead of one insert per user (identity ids switch off hibernate batching)
+    @Override
+    @Transactional
+    public void enqueueCreateAll(List<User> users) {
+        Map<Long, String> userNamesById = new LinkedHashMap<>();
+        users.forEach(user -> userNamesById.put(user.getId(), user.getUserName()));
+        insertAll(OutboxOperation.CREATE_USER, userNamesById);
+    }
+
+    @Override
+    @Transactional
+    public void enqueueDelete(User user, String username) {
+        keycloakOutboxRepository.save(new KeycloakOutboxEvent(OutboxOperation.DELETE_USER, user.getId(), username));
+    }
+
+    // batch deactivation, usernames are the ones before the soft delete renamed them
+    @Override
+    @Transactional
+    public void enqueueDeleteAll(Map<Long, String> userNamesById) {
+        insertAll(OutboxOperation.DELETE_USER, userNamesById);
+    }
+
+    private void insertAll(OutboxOperation operation, Map<Long, String> userNamesById) {
+        if (userNamesById.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate("INSERT INTO keycloak_outbox (operation, user_id, user_name, status, attempts, " +
+                        "next_attempt_date_time, insert_date_time) VALUES (?, ?, ?, ?, 0, ?, ?)",
+                userNamesById.entrySet(), userNamesById.size(), (statement, user) -> {
+                    statement.setString(1, operation.name());
+                    statement.setLong(2, user.getKey());
+                    statement.setString(3, user.getValue());
+                    statement.setString(4, OutboxStatus.PENDING.name());
+                    statement.setTimestamp(5, Timestamp.valueOf(now));
+                    statement.setTimestamp(6, Timestamp.valueOf(now));
+                });
+    }
+
+    // sends the events that are due, one batch per run, returns how many were sent
+    @Override
+    @Scheduled(initialDelayString = "${keycloak-outbox.poll-interval:5000}", fixedDelayString = "${keycloak-outbox.poll-interval:5000}")
+    public int dispatch() {
+
+        List<KeycloakOutboxEvent> events = keycloakOutboxRepository.findAllByStatusAndNextAttemptDateTimeLessThanEqualOrderByIdAsc(
+                OutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+
+        int sent = 0;
+        Set<Long> blockedUsers = new HashSet<>();
+
+        for (KeycloakOutboxEvent event : events) {
+
+            // an earlier change of the same user is still waiting for its retry
+            if (blockedUsers.contains(event.getUserId())
+                    || keycloakOutboxRepository.existsByUserIdAndStatusAndIdLessThan(event.getUserId(), OutboxStatus.PENDING, event.getId())) {
+                blockedUsers.add(event.getUserId());
+                continue;
+            }
+
+            if (send(event)) {
+                sent++;
+            } else {
+                blockedUsers.add(event.getUserId());
+            }
+        }
+
+        pendingEvents.set(keycloakOutboxRepository.countByStatus(OutboxStatus.PENDING));
+        return sent;
+    }
+
+    private boolean send(KeycloakOutboxEvent event) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+
+        try {
+            // both calls are idempotent in KeycloakServiceImpl, sending an event twice after a crash does no harm
+            if (event.getOperation() == OutboxOperation.CREATE_USER) {
+                Optional<User> user = userRepository.findById(event.getUserId());
+                if (user.isPresent() && !user.get().getIsDeleted()) {
+                    keycloakService.userCreate(userMapper.convertToDto(user.get()));
+                    outcome = "success";
+                } else {
+                    // user is deleted before it reached keycloak, nothing to create
+                    outcome = "skipped";
+                }
+            } else {
+                keycloakService.delete(event.getUserName());
+                outcome = "success";
+            }
+            event.setStatus(OutboxStatus.DONE);
+            event.setProcessedDateTime(LocalDateTime.now());
+            event.setLastError(null);
+
+        } catch (RuntimeException exception) {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(abbreviate(exception.toString()));
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                outcome = "failed";
+                log.error("Keycloak outbox event failed -> Id: {}, Operation: {}, User: {}, Attempts: {}",
+                        event.getId(), event.getOperation(), event.getUserName(), event.getAttempts(), exception);
+            } else {
+                event.setNextAttemptDateTime(LocalDateTime.now().plus(backoff(event.getAttempts())));
+                outcome = "retry";
+                log.warn("Keycloak outbox event will be retried -> Id: {}, Operation: {}, User: {}, Attempts: {}, Error: {}",
+                        event.getId(), event.getOperation(), event.getUserName(), event.getAttempts(), exception.getMessage());
+            }
+        }
+
+        keycloakOutboxRepository.save(event);
+        // count of the timer per outcome is the number of events sent, retried, failed or skipped
+        sample.stop(meterRegistry.timer("keycloak.outbox.send", "operation", event.getOperation().name(), "outcome", outcome));
+
+        return event.getStatus() == OutboxStatus.DONE;
+    }
+
+    // 10s, 20s, 40s ... until max-retry-backoff
+    private Duration backoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private String abbreviate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+}
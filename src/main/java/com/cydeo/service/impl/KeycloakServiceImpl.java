@@ -1,6 +1,8 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.annotation.ExecutionTime;
 import com.cydeo.config.KeycloakProperties;
+import com.cydeo.config.KeycloakTracingFilter;
 import com.cydeo.dto.UserDTO;
 import com.cydeo.service.KeycloakService;
 import org.keycloak.admin.client.Keycloak;
@@ -12,12 +14,14 @@ import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.stereotype.Service;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.core.Response;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.keycloak.admin.client.CreatedResponseUtil.getCreatedId;
 
+@ExecutionTime
 @Service
 public class KeycloakServiceImpl implements KeycloakService {
 
@@ -25,14 +29,36 @@ public class KeycloakServiceImpl implements KeycloakService {
     private final KeycloakProperties keycloakProperties;
     // we did this class KeycloakProperties and put inside @Value variable
     //wherever class I needed I can inject it and I can use all these variable
+    private final Keycloak keycloak; // shared admin client, see KeycloakAdminConfig
 
-    public KeycloakServiceImpl(KeycloakProperties keycloakProperties) {
+    public KeycloakServiceImpl(KeycloakProperties keycloakProperties, Keycloak keycloak) {
 
         this.keycloakProperties = keycloakProperties;
+        this.keycloak = keycloak;
     }
 
     @Override
     public Response userCreate(UserDTO userDTO) {
+        try {
+            return create(userDTO);
+        } catch (ProcessingException exception) {
+            // no response (timeout, connection refused), the span of the failed call is ended here
+            KeycloakTracingFilter.failed(exception);
+            throw exception;
+        }
+    }
+
+    @Override
+    public void delete(String userName) {
+        try {
+            deleteUser(userName);
+        } catch (ProcessingException exception) {
+            KeycloakTracingFilter.failed(exception);
+            throw exception;
+        }
+    }
+
+    private Response create(UserDTO userDTO) {
         //this is the service which is going to create the user in the keycloak
 
         CredentialRepresentation credential = new CredentialRepresentation();
@@ -53,11 +79,8 @@ public class KeycloakServiceImpl implements KeycloakService {
         // whatever you see in keycloak add user screen
 
 
-        Keycloak keycloak = getKeycloakInstance();
-        //to be able to do some action in the keycloak we need to open an instance first in the keycloak, we need to open that instance
-        // like transaction, if i want to do anything in the database we need to first open a transaction (we discussed this one, open transaction
-        // hikari pool, it is collecting all the transaction for your beloved  )
-        // ready code in this class at the end,
+        //to be able to do some action in the keycloak we need an instance of the admin client
+        // like the hikari pool for the database, it is opened once and its connections are reused by every call
 
         RealmResource realmResource = keycloak.realm(keycloakProperties.getRealm());
         //keycloakProperties--> there is one instance from one class called Keycloak Properties and inside this class there is a variable called realm and
@@ -69,7 +92,15 @@ public class KeycloakServiceImpl implements KeycloakService {
         // Create Keycloak user
         Response result = usersResource.create(keycloakUser);
 
-        String userId = getCreatedId(result);
+        String userId;
+        if (result.getStatus() == Response.Status.CONFLICT.getStatusCode()) {
+            // created by an earlier attempt of the outbox, the role is added again which keycloak ignores if it is there
+            result.close();
+            userId = usersResource.search(userDTO.getUserName(), true).get(0).getId();
+        } else {
+            userId = getCreatedId(result);
+            result.close(); // gives the pooled connection back, only status and headers are needed
+        }
         ClientRepresentation appClient = realmResource.clients()
                 .findByClientId(keycloakProperties.getClientId()).get(0);
 
@@ -79,29 +110,19 @@ public class KeycloakServiceImpl implements KeycloakService {
         realmResource.users().get(userId).roles().clientLevel(appClient.getId())
                 .add(List.of(userClientRole));
 
-
-        keycloak.close();
         return result;
     }
 
-    @Override
-    public void delete(String userName) {
-
-        Keycloak keycloak = getKeycloakInstance();
+    private void deleteUser(String userName) {
 
         RealmResource realmResource = keycloak.realm(keycloakProperties.getRealm());
         UsersResource usersResource = realmResource.users();
 
-        List<UserRepresentation> userRepresentations = usersResource.search(userName);
+        List<UserRepresentation> userRepresentations = usersResource.search(userName, true);
+        if (userRepresentations.isEmpty()) {
+            return; // already deleted by an earlier attempt of the outbox
+        }
         String uid = userRepresentations.get(0).getId();
-        usersResource.delete(uid);
-
-        keycloak.close();
-    }
-
-    private Keycloak getKeycloakInstance(){
-        return Keycloak.getInstance(keycloakProperties.getAuthServerUrl(),
-                keycloakProperties.getMasterRealm(), keycloakProperties.getMasterUser()
-                , keycloakProperties.getMasterUserPswd(), keycloakProperties.getMasterClient());
+        usersResource.delete(uid).close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.PrincipalDTO;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.PrincipalService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+
+// resolves the logged-in user once per request, and keeps username -> id/role for a while across requests
+// UserServiceImpl evicts the entry when the user is updated or deleted
+@ExecutionTime
+@Service
+public class PrincipalServiceImpl implements PrincipalService {
+
+    private static final String REQUEST_ATTRIBUTE = PrincipalServiceImpl.class.getName() + ".LOGGED_IN_USER";
+
+    private final UserRepository userRepository;
+    private final Cache<String, PrincipalDTO> principalCache;
+
+    public PrincipalServiceImpl(UserRepository userRepository,
+                                @Value("${principal-cache.max-size:10000}") long maxSize,
+                                @Value("${principal-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.principalCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public String getUserName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // to get logged in user information
+        if (authentication.getDetails() instanceof SimpleKeycloakAccount) {
+            SimpleKeycloakAccount details = (SimpleKeycloakAccount) authentication.getDetails();
+            return details.getKeycloakSecurityContext().getToken().getPreferredUsername();
+        }
+        // auth.mode=jwt, the name is already the preferred_username of the token
+        return authentication.getName();
+    }
+
+    @Override
+    public PrincipalDTO getLoggedInUser() {
+
+        // outside of a web request (scheduled jobs, tests) there is nothing to remember it on, the cache is still used
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            PrincipalDTO resolved = (PrincipalDTO) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (resolved != null) return resolved;
+        }
+
+        String username = getUserName();
+        PrincipalDTO principal = principalCache.get(username, key -> userRepository.findPrincipalByUserName(key).orElse(null));
+        if (principal == null) throw new NoSuchElementException("User not found.");
+
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+        return principal;
+    }
+
+    @Override
+    public void evict(String username) {
+        principalCache.invalidate(username);
+    }
+
+}
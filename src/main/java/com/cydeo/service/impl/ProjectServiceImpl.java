@@ -1,40 +1,54 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.CursorPageDTO;
+import com.cydeo.dto.PrincipalDTO;
 import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.ProjectTaskCountDTO;
 import com.cydeo.dto.UserDTO;
 import com.cydeo.entity.Project;
-import com.cydeo.entity.User;
 import com.cydeo.enums.Status;
+import com.cydeo.mapper.CursorUtil;
 import com.cydeo.mapper.ProjectMapper;
 import com.cydeo.mapper.UserMapper;
 import com.cydeo.repository.ProjectRepository;
 import com.cydeo.service.ProjectService;
+import com.cydeo.service.PrincipalService;
+import com.cydeo.service.ProjectTaskStatsService;
 import com.cydeo.service.TaskService;
-import com.cydeo.service.UserService;
-import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+@ExecutionTime
 @Service
 public class ProjectServiceImpl implements ProjectService {
 
     private final ProjectRepository projectRepository;
     private final ProjectMapper projectMapper;
-    private final UserService userService;
+    private final PrincipalService principalService;
     private final UserMapper userMapper;
     private final TaskService taskService;
+    private final ProjectTaskStatsService projectTaskStatsService;
+    private final CursorUtil cursorUtil;
 
-    public ProjectServiceImpl(ProjectRepository projectRepository, ProjectMapper projectMapper, UserService userService, UserMapper userMapper, TaskService taskService) {
+    public ProjectServiceImpl(ProjectRepository projectRepository, ProjectMapper projectMapper, PrincipalService principalService, UserMapper userMapper, TaskService taskService, ProjectTaskStatsService projectTaskStatsService, CursorUtil cursorUtil) {
         this.projectRepository = projectRepository;
         this.projectMapper = projectMapper;
-        this.userService = userService;
+        this.principalService = principalService;
         this.userMapper = userMapper;
         this.taskService = taskService;
+        this.projectTaskStatsService = projectTaskStatsService;
+        this.cursorUtil = cursorUtil;
     }
 
     @Override
@@ -51,6 +65,17 @@ public class ProjectServiceImpl implements ProjectService {
         return list.stream().map(projectMapper::convertToDto).collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPageDTO<ProjectDTO> listAllProjects(String after, int limit) {
+
+        String afterCode = after == null ? "" : cursorUtil.decode(after, 1)[0];
+        Slice<Project> slice = projectRepository.findAllByProjectCodeGreaterThanOrderByProjectCodeAsc(afterCode, cursorUtil.limit(limit));
+
+        List<ProjectDTO> projects = slice.stream().map(projectMapper::convertToDto).collect(Collectors.toList());
+        String nextCursor = slice.hasNext() ? cursorUtil.encode(projects.get(projects.size() - 1).getProjectCode()) : null;
+        return new CursorPageDTO<>(projects, nextCursor);
+    }
+
     @Override
     public void save(ProjectDTO dto) {
 
@@ -76,6 +101,7 @@ public class ProjectServiceImpl implements ProjectService {
     }
 
     @Override
+    @Transactional
     public void delete(String code) {
         Project project = projectRepository.findByProjectCode(code);
         project.setIsDeleted(true);
@@ -84,39 +110,43 @@ public class ProjectServiceImpl implements ProjectService {
 
         projectRepository.save(project);
 
-        taskService.deleteByProject(projectMapper.convertToDto(project));
+        // project and its tasks are deleted together, the project change is flushed before the task update
+        taskService.deleteByProject(project.getId());
 
     }
 
     @Override
+    @Transactional
     public void complete(String code) {
         Project project = projectRepository.findByProjectCode(code);
         project.setProjectStatus(Status.COMPLETE);
         projectRepository.save(project);
 
-        taskService.completeByProject(projectMapper.convertToDto(project));
+        // project and all of its tasks are completed together, tasks with one update statement
+        taskService.completeByProject(project.getId());
     }
 
     @Override
     public List<ProjectDTO> listAllProjectDetails() {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        SimpleKeycloakAccount details = (SimpleKeycloakAccount) authentication.getDetails();
-        String username = details.getKeycloakSecurityContext().getToken().getPreferredUsername();
        // UserDTO currentUserDTO = userService.findByUserName("harold@manager.com"); // we change this hardcoded portion with keycloak authentication
-        UserDTO currentUserDTO = userService.findByUserName(username);
-
-        User user = userMapper.convertToEntity(currentUserDTO);
+        PrincipalDTO currentUser = principalService.getLoggedInUser();
 
-        List<Project> list = projectRepository.findAllByAssignedManager(user);
+        List<Project> list = projectRepository.findAllByAssignedManagerId(currentUser.getId());
 
+        // counters are maintained on every task change, one lookup for all projects, projects without any task are not in the map
+        Map<Long, ProjectTaskCountDTO> taskCounts = projectTaskStatsService
+                .findAllByProjectIds(list.stream().map(Project::getId).collect(Collectors.toList()));
 
         return list.stream().map(project -> {
 
             ProjectDTO obj = projectMapper.convertToDto(project);
 
-            obj.setUnfinishedTaskCounts(taskService.totalNonCompletedTask(project.getProjectCode()));
-            obj.setCompleteTaskCounts(taskService.totalCompletedTask(project.getProjectCode()));
+            ProjectTaskCountDTO counts = taskCounts.get(project.getId());
+            if (counts != null) {
+                obj.setUnfinishedTaskCounts(counts.getUnfinishedTaskCounts().intValue());
+                obj.setCompleteTaskCounts(counts.getCompleteTaskCounts().intValue());
+            }
 
             return obj;
             }
@@ -131,4 +161,16 @@ public class ProjectServiceImpl implements ProjectService {
         return projects.stream().map(projectMapper::convertToDto).collect(Collectors.toList());
     }
 
+    @Override
+    public boolean existsNonCompletedByAssignedManager(Long managerId) {
+        return projectRepository.existsByProjectStatusIsNotAndAssignedManagerId(Status.COMPLETE, managerId);
+    }
+
+    // one query for all the managers, the ones that still have an open project come back
+    @Override
+    public Set<Long> findAllManagersWithNonCompletedProjects(Collection<Long> managerIds) {
+        if (managerIds.isEmpty()) return Set.of();
+        return new HashSet<>(projectRepository.findAllAssignedManagerIdsByProjectStatusIsNot(Status.COMPLETE, managerIds));
+    }
+
 }
@@ -0,0 +1,127 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.ProjectTaskCountDTO;
+import com.cydeo.entity.ProjectTaskStats;
+import com.cydeo.enums.Status;
+import com.cydeo.repository.ProjectTaskStatsRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.service.ProjectTaskStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@ExecutionTime
+@Service
+@Slf4j
+public class ProjectTaskStatsServiceImpl implements ProjectTaskStatsService {
+
+    private final ProjectTaskStatsRepository projectTaskStatsRepository;
+    private final TaskRepository taskRepository;
+
+    public ProjectTaskStatsServiceImpl(ProjectTaskStatsRepository projectTaskStatsRepository, TaskRepository taskRepository) {
+        this.projectTaskStatsRepository = projectTaskStatsRepository;
+        this.taskRepository = taskRepository;
+    }
+
+    @Override
+    @Transactional
+    public void increment(Long projectId, Status status, int delta) {
+
+        long completeDelta = status == Status.COMPLETE ? delta : 0;
+        long unfinishedDelta = status == Status.COMPLETE ? 0 : delta;
+
+        if (projectTaskStatsRepository.increment(projectId, completeDelta, unfinishedDelta) == 0
+                && !insertCounted(projectId)) {
+            // another transaction created the counters between the update and the insert, its count doesn't see our change
+            projectTaskStatsRepository.increment(projectId, completeDelta, unfinishedDelta);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void completeAll(Long projectId) {
+        if (projectTaskStatsRepository.completeAll(projectId) == 0 && !insertCounted(projectId)) {
+            projectTaskStatsRepository.completeAll(projectId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reset(Long projectId) {
+        projectTaskStatsRepository.findById(projectId).ifPresent(projectTaskStatsRepository::delete);
+    }
+
+    @Override
+    public Map<Long, ProjectTaskCountDTO> findAllByProjectIds(Collection<Long> projectIds) {
+        return projectTaskStatsRepository.findAllById(projectIds).stream()
+                .map(stats -> new ProjectTaskCountDTO(stats.getProjectId(), stats.getCompleteTaskCounts(), stats.getUnfinishedTaskCounts()))
+                .collect(Collectors.toMap(ProjectTaskCountDTO::getProjectId, Function.identity()));
+    }
+
+    // V5 creates project_task_stats empty next to existing tasks, and tasks may have changed while the counters were not kept,
+    // the counters are rebuilt once the application is ready instead of showing 0 until the nightly run
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    // recomputes every counter from the tasks table and repairs the ones that drifted, returns how many were repaired
+    @Override
+    @Transactional
+    @Scheduled(cron = "${project-task-stats.rebuild-cron:0 0 3 * * *}")
+    public int rebuild() {
+
+        Map<Long, ProjectTaskCountDTO> actualCounts = taskRepository.totalTaskCountsGroupByProject().stream()
+                .collect(Collectors.toMap(ProjectTaskCountDTO::getProjectId, Function.identity()));
+        Map<Long, ProjectTaskStats> storedCounts = projectTaskStatsRepository.findAll().stream()
+                .collect(Collectors.toMap(ProjectTaskStats::getProjectId, Function.identity()));
+
+        int repaired = 0;
+
+        for (ProjectTaskCountDTO actual : actualCounts.values()) {
+            ProjectTaskStats stored = storedCounts.get(actual.getProjectId());
+            if (stored == null
+                    || stored.getCompleteTaskCounts() != actual.getCompleteTaskCounts()
+                    || stored.getUnfinishedTaskCounts() != actual.getUnfinishedTaskCounts()) {
+                projectTaskStatsRepository.save(new ProjectTaskStats(actual.getProjectId(),
+                        actual.getCompleteTaskCounts(), actual.getUnfinishedTaskCounts()));
+                repaired++;
+            }
+        }
+
+        // counters of projects that have no tasks anymore
+        List<ProjectTaskStats> orphans = storedCounts.values().stream()
+                .filter(stats -> !actualCounts.containsKey(stats.getProjectId()))
+                .collect(Collectors.toList());
+        projectTaskStatsRepository.deleteAll(orphans);
+        repaired += orphans.size();
+
+        if (repaired > 0) {
+            log.warn("Project task counters repaired -> Projects: {}", repaired);
+        }
+        return repaired;
+    }
+
+    // first change of a project without counters yet (new project or data from before the counters),
+    // the task change is already flushed so counting the tasks once gives the right starting point
+    // two transactions can both get here for the same project, a plain insert would fail one of them on the primary key
+    // and roll back its task change
+    private boolean insertCounted(Long projectId) {
+        ProjectTaskStats counts = taskRepository.totalTaskCountsByProject(projectId)
+                .map(total -> new ProjectTaskStats(projectId, total.getCompleteTaskCounts(), total.getUnfinishedTaskCounts()))
+                .orElseGet(() -> new ProjectTaskStats(projectId, 0, 0));
+        return projectTaskStatsRepository.insertIfAbsent(projectId, counts.getCompleteTaskCounts(), counts.getUnfinishedTaskCounts()) == 1;
+    }
+
+}
@@ -1,43 +1,96 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.annotation.ExecutionTime;
 import com.cydeo.dto.RoleDTO;
-import com.cydeo.entity.Role;
-import com.cydeo.mapper.MapperUtil;
 import com.cydeo.mapper.RoleMapper;
 import com.cydeo.repository.RoleRepository;
 import com.cydeo.service.RoleService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+// roles are reference data seeded by the V3__seed_roles migration, they are read once and served from memory
+// if roles are changed in the database, refresh() has to be called
+@ExecutionTime
 @Service
+@Slf4j
 public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final RoleMapper roleMapper;
-    private final MapperUtil mapperUtil;
 
-    public RoleServiceImpl(RoleRepository roleRepository, RoleMapper roleMapper, MapperUtil mapperUtil) {
+    private volatile RoleIndex roleIndex;
+
+    public RoleServiceImpl(RoleRepository roleRepository, RoleMapper roleMapper) {
         this.roleRepository = roleRepository;
         this.roleMapper = roleMapper;
-        this.mapperUtil = mapperUtil;
+    }
+
+    // flyway has run the migrations before the repositories are usable, the roles are preloaded once the application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refresh();
+    }
+
+    @Override
+    public void refresh() {
+        List<RoleDTO> roles = roleRepository.findAll().stream()
+                .map(roleMapper::convertToDto)
+                .collect(Collectors.toList());
+        roleIndex = new RoleIndex(roles);
+        log.info("Roles are loaded -> Count: {}", roles.size());
     }
 
     @Override
     public List<RoleDTO> listAllRoles() {
-        List<Role> roleList = roleRepository.findAll();
-//        return roleList.stream().map(roleMapper::convertToDto).collect(Collectors.toList());
-        return roleList.stream().map(role -> mapperUtil.convert(role, new RoleDTO())).collect(Collectors.toList());
-//        return roleList.stream().map(role -> mapperUtil.convert(role, RoleDTO.class)).collect(Collectors.toList());
+        return getRoleIndex().roles.stream().map(this::copy).collect(Collectors.toList());
     }
 
     @Override
     public RoleDTO findById(Long id) {
+        RoleDTO role = getRoleIndex().byId.get(id);
+        if (role == null) throw new NoSuchElementException("Role not found.");
+        return copy(role);
+    }
 
+    @Override
+    public RoleDTO findByDescription(String description) {
+        RoleDTO role = getRoleIndex().byDescription.get(description.toLowerCase(Locale.ROOT));
+        return role == null ? null : copy(role);
+    }
+
+    private RoleIndex getRoleIndex() {
+        if (roleIndex == null) {
+            refresh();
+        }
+        return roleIndex;
+    }
+
+    // RoleDTO is mutable, callers get their own copy so nobody can change the cached one
+    private RoleDTO copy(RoleDTO role) {
+        return new RoleDTO(role.getId(), role.getDescription());
+    }
 
+    private static class RoleIndex {
 
+        private final List<RoleDTO> roles;
+        private final Map<Long, RoleDTO> byId;
+        private final Map<String, RoleDTO> byDescription;
 
-        return roleMapper.convertToDto(roleRepository.findById(id).get());
+        private RoleIndex(List<RoleDTO> roles) {
+            this.roles = List.copyOf(roles);
+            this.byId = roles.stream()
+                    .collect(Collectors.toUnmodifiableMap(RoleDTO::getId, Function.identity()));
+            this.byDescription = roles.stream()
+                    .collect(Collectors.toUnmodifiableMap(role -> role.getDescription().toLowerCase(Locale.ROOT), Function.identity(), (first, second) -> first));
+        }
     }
 }
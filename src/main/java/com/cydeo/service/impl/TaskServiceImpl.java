@@ -1,42 +1,63 @@
 package com.cydeo.service.impl;
 
-import com.cydeo.dto.ProjectDTO;
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.dto.CursorPageDTO;
+import com.cydeo.dto.PrincipalDTO;
 import com.cydeo.dto.TaskDTO;
 import com.cydeo.dto.UserDTO;
-import com.cydeo.entity.Project;
 import com.cydeo.entity.Task;
 import com.cydeo.enums.Status;
-import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.CursorUtil;
 import com.cydeo.mapper.TaskMapper;
 import com.cydeo.mapper.UserMapper;
 import com.cydeo.repository.TaskRepository;
+import com.cydeo.service.PrincipalService;
+import com.cydeo.service.ProjectTaskStatsService;
 import com.cydeo.service.TaskService;
-import com.cydeo.service.UserService;
-import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@ExecutionTime
 @Service
 public class TaskServiceImpl implements TaskService {
 
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+
     private final TaskRepository taskRepository;
     private final TaskMapper taskMapper;
-    private final ProjectMapper projectMapper;
-    private final UserService userService;
+    private final PrincipalService principalService;
     private final UserMapper userMapper;
+    private final ProjectTaskStatsService projectTaskStatsService;
+    private final CursorUtil cursorUtil;
+    private final EntityManager entityManager;
+    private final ObjectWriter taskWriter;
 
-    public TaskServiceImpl(TaskRepository taskRepository, TaskMapper taskMapper, ProjectMapper projectMapper, UserService userService, UserMapper userMapper) {
+    public TaskServiceImpl(TaskRepository taskRepository, TaskMapper taskMapper, PrincipalService principalService, UserMapper userMapper, ProjectTaskStatsService projectTaskStatsService, CursorUtil cursorUtil, EntityManager entityManager, ObjectMapper objectMapper) {
         this.taskRepository = taskRepository;
         this.taskMapper = taskMapper;
-        this.projectMapper = projectMapper;
-        this.userService = userService;
+        this.principalService = principalService;
         this.userMapper = userMapper;
+        this.projectTaskStatsService = projectTaskStatsService;
+        this.cursorUtil = cursorUtil;
+        this.entityManager = entityManager;
+        this.taskWriter = objectMapper.writerFor(TaskDTO.class);
     }
 
     @Override
@@ -56,30 +77,79 @@ public class TaskServiceImpl implements TaskService {
     }
 
     @Override
+    public CursorPageDTO<TaskDTO> listAllTasks(String after, int limit) {
+
+        Long afterId = after == null ? 0L : cursorUtil.toLong(cursorUtil.decode(after, 1)[0]);
+        Slice<Task> slice = taskRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, cursorUtil.limit(limit));
+
+        List<TaskDTO> tasks = slice.stream().map(taskMapper::convertToDto).collect(Collectors.toList());
+        String nextCursor = slice.hasNext() ? cursorUtil.encode(tasks.get(tasks.size() - 1).getId()) : null;
+        return new CursorPageDTO<>(tasks, nextCursor);
+    }
+
+    // newline delimited json, one task per line, memory stays flat because nothing is collected into a list
+    @Override
+    @Transactional
+    public void exportAllTasks(OutputStream outputStream) throws IOException {
+
+        try (Stream<Task> tasks = taskRepository.streamAll()) {
+            Iterator<Task> iterator = tasks.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                outputStream.write(taskWriter.writeValueAsBytes(taskMapper.convertToDto(task)));
+                outputStream.write('\n');
+                entityManager.detach(task);
+                // projects and users of the exported tasks are in the persistence context too, drop them regularly
+                if (++written % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    @Transactional
     public void save(TaskDTO dto) {
 
         dto.setTaskStatus(Status.OPEN);
         dto.setAssignedDate(LocalDate.now());
         Task task = taskMapper.convertToEntity(dto);
-        taskRepository.save(task);
+        Task savedTask = taskRepository.save(task);
+
+        projectTaskStatsService.increment(savedTask.getProject().getId(), savedTask.getTaskStatus(), 1);
 
     }
 
     @Override
+    @Transactional
     public void update(TaskDTO dto) {
 
         Optional<Task> task = taskRepository.findById(dto.getId());
         Task convertedTask  = taskMapper.convertToEntity(dto);
 
         if(task.isPresent()){
+            // save is merging into the found task, so keep the old values for the counters first
+            Long oldProjectId = task.get().getProject().getId();
+            Status oldStatus = task.get().getTaskStatus();
+
             convertedTask.setTaskStatus(dto.getTaskStatus() == null ? task.get().getTaskStatus() : dto.getTaskStatus());
             convertedTask.setAssignedDate(task.get().getAssignedDate());
-            taskRepository.save(convertedTask);
+            Task updatedTask = taskRepository.save(convertedTask);
+
+            Long newProjectId = updatedTask.getProject().getId();
+            if (!oldProjectId.equals(newProjectId) || oldStatus != updatedTask.getTaskStatus()) {
+                projectTaskStatsService.increment(oldProjectId, oldStatus, -1);
+                projectTaskStatsService.increment(newProjectId, updatedTask.getTaskStatus(), 1);
+            }
         }
 
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
 
         Optional<Task> foundTask = taskRepository.findById(id);
@@ -87,60 +157,49 @@ public class TaskServiceImpl implements TaskService {
         if(foundTask.isPresent()){
             foundTask.get().setIsDeleted(true);
             taskRepository.save(foundTask.get());
+
+            projectTaskStatsService.increment(foundTask.get().getProject().getId(), foundTask.get().getTaskStatus(), -1);
         }
 
     }
 
     @Override
-    public int totalNonCompletedTask(String projectCode) {
-        return taskRepository.totalNonCompletedTasks(projectCode);
-    }
+    @Transactional
+    public int deleteByProject(Long projectId) {
+        int deletedTasks = taskRepository.softDeleteAllByProject(projectId, LocalDateTime.now(), 1L);
 
-    @Override
-    public int totalCompletedTask(String projectCode) {
-        return taskRepository.totalCompletedTasks(projectCode);
+        projectTaskStatsService.reset(projectId);
+        return deletedTasks;
     }
 
     @Override
-    public void deleteByProject(ProjectDTO projectDTO) {
-        Project project = projectMapper.convertToEntity(projectDTO);
-        List<Task> tasks = taskRepository.findAllByProject(project);
-        tasks.forEach(task -> delete(task.getId()));
-    }
+    @Transactional
+    public int completeByProject(Long projectId) {
+        int completedTasks = taskRepository.completeAllByProject(projectId, LocalDateTime.now(), 1L);
 
-    @Override
-    public void completeByProject(ProjectDTO projectDTO) {
-        Project project = projectMapper.convertToEntity(projectDTO);
-        List<Task> tasks = taskRepository.findAllByProject(project);
-        tasks.stream().map(taskMapper::convertToDto).forEach(taskDTO -> {
-            taskDTO.setTaskStatus(Status.COMPLETE);
-            update(taskDTO);
-        });
+        projectTaskStatsService.completeAll(projectId);
+        return completedTasks;
     }
 
     @Override
     public List<TaskDTO> listAllTasksByStatusIsNot(Status status) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        SimpleKeycloakAccount details = (SimpleKeycloakAccount) authentication.getDetails();
-        String username = details.getKeycloakSecurityContext().getToken().getPreferredUsername();
         // UserDTO currentUserDTO = userService.findByUserName("harold@manager.com"); // we change this hardcoded portion with keycloak authentication
-        UserDTO loggedInUser = userService.findByUserName(username);
-
-        //UserDTO loggedInUser = userService.findByUserName("john@employee.com");
+        PrincipalDTO loggedInUser = principalService.getLoggedInUser();
 
         List<Task> tasks = taskRepository.
-                findAllByTaskStatusIsNotAndAssignedEmployee(status, userMapper.convertToEntity(loggedInUser));
+                findAllByTaskStatusIsNotAndAssignedEmployeeId(status, loggedInUser.getId());
         return tasks.stream().map(taskMapper::convertToDto).collect(Collectors.toList());
     }
 
     @Override
     public List<TaskDTO> listAllTasksByStatus(Status status) {
 
-        UserDTO loggedInUser = userService.findByUserName("john@employee.com");
+        //UserDTO loggedInUser = userService.findByUserName("john@employee.com");
+        PrincipalDTO loggedInUser = principalService.getLoggedInUser();
 
         List<Task> tasks = taskRepository.
-                findAllByTaskStatusAndAssignedEmployee(status, userMapper.convertToEntity(loggedInUser));
+                findAllByTaskStatusAndAssignedEmployeeId(status, loggedInUser.getId());
         return tasks.stream().map(taskMapper::convertToDto).collect(Collectors.toList());
     }
 
@@ -151,4 +210,16 @@ public class TaskServiceImpl implements TaskService {
         return tasks.stream().map(taskMapper::convertToDto).collect(Collectors.toList());
     }
 
+    @Override
+    public boolean existsNonCompletedByAssignedEmployee(Long employeeId) {
+        return taskRepository.existsByTaskStatusIsNotAndAssignedEmployeeId(Status.COMPLETE, employeeId);
+    }
+
+    // one query for all the employees, the ones that still have an open task come back
+    @Override
+    public Set<Long> findAllEmployeesWithNonCompletedTasks(Collection<Long> employeeIds) {
+        if (employeeIds.isEmpty()) return Set.of();
+        return new HashSet<>(taskRepository.findAllAssignedEmployeeIdsByTaskStatusIsNot(Status.COMPLETE, employeeIds));
+    }
+
 }
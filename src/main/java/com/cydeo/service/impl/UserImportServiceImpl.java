@@ -0,0 +1,439 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.config.BoundedPasswordEncoder;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserImportReportDTO;
+import com.cydeo.dto.UserImportResultDTO;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Gender;
+import com.cydeo.exception.InvalidImportFileException;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.KeycloakOutboxService;
+import com.cydeo.service.RoleService;
+import com.cydeo.service.UserImportService;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+// reads the file row by row and imports it batch by batch, so a big file is never completely in memory
+// passwords of a batch are hashed in parallel on the password hashing executor, users and their keycloak outbox events are inserted with jdbc batches
+@ExecutionTime
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final List<String> CSV_HEADER = List.of("firstName", "lastName", "userName", "passWord", "phone", "role", "gender");
+
+    private final UserRepository userRepository;
+    private final RoleService roleService;
+    private final KeycloakOutboxService keycloakOutboxService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxHashing;
+
+    public UserImportServiceImpl(UserRepository userRepository, RoleService roleService, KeycloakOutboxService keycloakOutboxService,
+                                 BoundedPasswordEncoder passwordEncoder, Validator validator, ObjectMapper objectMapper,
+                                 JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${user-import.batch-size:500}") int batchSize,
+                                 @Value("${user-import.max-hashing:16}") int maxHashing) {
+        this.userRepository = userRepository;
+        this.roleService = roleService;
+        this.keycloakOutboxService = keycloakOutboxService;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        // never more than half of the hashing places, logins and user saves get the rest
+        this.maxHashing = Math.max(1, Math.min(maxHashing, passwordEncoder.getMaxPending() / 2));
+    }
+
+    @Override
+    public UserImportReportDTO importCsv(InputStream inputStream) throws IOException {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) throw new InvalidImportFileException("File is empty.");
+
+        List<String> columns = splitCsvLine(header.replace("\uFEFF", "")).stream().map(String::trim).collect(Collectors.toList());
+        if (!columns.containsAll(CSV_HEADER)) {
+            throw new InvalidImportFileException("Header must contain " + String.join(",", CSV_HEADER));
+        }
+
+        Iterator<ImportRow> rows = new Iterator<>() {
+
+            private int row;
+            private String line = nextLine();
+
+            @Override
+            public boolean hasNext() {
+                return line != null;
+            }
+
+            @Override
+            public ImportRow next() {
+                if (line == null) throw new NoSuchElementException();
+                ImportRow importRow = csvRow(++row, line, columns);
+                line = nextLine();
+                return importRow;
+            }
+
+            private String nextLine() {
+                try {
+                    String next;
+                    do {
+                        next = reader.readLine();
+                    } while (next != null && next.isBlank());
+                    return next;
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+        };
+
+        try {
+            return importRows(rows);
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    @Override
+    public UserImportReportDTO importJson(InputStream inputStream) throws IOException {
+
+        MappingIterator<UserDTO> users;
+        try {
+            // elements of the root array are read one at a time
+            users = objectMapper.readerFor(UserDTO.class).readValues(inputStream);
+        } catch (JsonProcessingException exception) {
+            throw new InvalidImportFileException("File is not a json array of users.", exception);
+        }
+
+        Iterator<ImportRow> rows = new Iterator<>() {
+
+            private int row;
+            // read error of hasNext(), next() reports it as a row
+            private RuntimeException readError;
+            private boolean broken;
+
+            @Override
+            public boolean hasNext() {
+                if (broken) return false;
+                if (readError != null) return true;
+                try {
+                    return users.hasNext();
+                } catch (RuntimeException exception) {
+                    readError = exception;
+                    return true;
+                }
+            }
+
+            @Override
+            public ImportRow next() {
+                row++;
+                try {
+                    if (readError != null) {
+                        RuntimeException exception = readError;
+                        readError = null;
+                        throw exception;
+                    }
+                    UserDTO user = users.next();
+                    return resolveRole(row, user, user.getRole());
+                } catch (RuntimeException exception) {
+                    // syntax error (truncated or malformed file), nothing after it can be read,
+                    // the batches before it are already imported and stay in the report
+                    JsonParseException syntaxError = syntaxError(exception);
+                    if (syntaxError != null) {
+                        broken = true;
+                        return new ImportRow(row, null, "File is broken here, the rest is not imported: " + syntaxError.getOriginalMessage());
+                    }
+                    if (!(exception instanceof RuntimeJsonMappingException)) throw exception;
+                    // a wrong value in one user, the iterator skips to the next one
+                    JsonMappingException cause = (JsonMappingException) exception.getCause();
+                    return new ImportRow(row, null, cause.getOriginalMessage());
+                }
+            }
+        };
+
+        return importRows(rows);
+    }
+
+    // jackson wraps a syntax error in a RuntimeException, or in a mapping error when it is inside a user
+    private static JsonParseException syntaxError(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonParseException) return (JsonParseException) cause;
+        }
+        return null;
+    }
+
+    private UserImportReportDTO importRows(Iterator<ImportRow> rows) {
+
+        List<UserImportResultDTO> results = new ArrayList<>();
+        Set<String> userNamesInFile = new HashSet<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() == batchSize) {
+                importBatch(batch, userNamesInFile, results);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, userNamesInFile, results);
+        }
+
+        results.sort(Comparator.comparingInt(UserImportResultDTO::getRow));
+        int imported = (int) results.stream().filter(UserImportResultDTO::isImported).count();
+        log.info("Users are imported -> Rows: {}, Imported: {}", results.size(), imported);
+        return new UserImportReportDTO(results.size(), imported, results.size() - imported, results);
+    }
+
+    private void importBatch(List<ImportRow> batch, Set<String> userNamesInFile, List<UserImportResultDTO> results) {
+
+        List<ImportRow> valid = new ArrayList<>();
+        for (ImportRow row : batch) {
+            String error = row.error != null ? row.error : validate(row.user);
+            if (error == null && !userNamesInFile.add(row.user.getUserName())) {
+                error = "User name is more than once in the file.";
+            }
+            if (error != null) {
+                results.add(failed(row, error));
+            } else {
+                valid.add(row);
+            }
+        }
+
+        // one query for the whole batch
+        Set<String> taken = valid.isEmpty() ? Set.of() : new HashSet<>(userRepository.findAllUserNamesIn(
+                valid.stream().map(row -> row.user.getUserName()).collect(Collectors.toList())));
+        valid.removeIf(row -> {
+            if (!taken.contains(row.user.getUserName())) return false;
+            results.add(failed(row, "User name already exists."));
+            return true;
+        });
+        if (valid.isEmpty()) return;
+
+        // at most maxHashing passwords of the import are hashing at once, a whole batch would take every place
+        // of the hashing executor and other callers would wait out max-wait and get 503
+        List<CompletableFuture<String>> hashing = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            if (i >= maxHashing) hashing.get(i - maxHashing).join();
+            hashing.add(passwordEncoder.encodeAsync(valid.get(i).user.getPassWord()));
+        }
+        List<String> encodedPasswords = hashing.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(valid, encodedPasswords));
+            valid.forEach(row -> results.add(new UserImportResultDTO(row.row, row.user.getUserName(), true, "Imported")));
+        } catch (DataAccessException exception) {
+            // whole batch is rolled back, for example a user name taken by another request in the meantime
+            String message = "Batch is not imported: " + NestedExceptionUtils.getMostSpecificCause(exception).getMessage();
+            log.warn("User import batch failed -> Rows: {}, Error: {}", valid.size(), message);
+            valid.forEach(row -> results.add(failed(row, message)));
+        }
+    }
+
+    private void insert(List<ImportRow> rows, List<String> encodedPasswords) {
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // ids are identity columns, hibernate would insert one by one, jdbc sends the batch in one go
+        jdbcTemplate.batchUpdate("INSERT INTO users (first_name, last_name, user_name, pass_word, enabled, phone, role_id, gender, " +
+                        "insert_date_time, insert_user_id, last_update_date_time, last_update_user_id, is_deleted) " +
+                        "VALUES (?, ?, ?, ?, true, ?, ?, ?, ?, 1, ?, 1, false)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        UserDTO user = rows.get(i).user;
+                        statement.setString(1, user.getFirstName());
+                        statement.setString(2, user.getLastName());
+                        statement.setString(3, user.getUserName());
+                        statement.setString(4, encodedPasswords.get(i));
+                        statement.setString(5, user.getPhone());
+                        statement.setLong(6, user.getRole().getId());
+                        if (user.getGender() == null) statement.setNull(7, Types.VARCHAR);
+                        else statement.setString(7, user.getGender().name());
+                        statement.setTimestamp(8, now);
+                        statement.setTimestamp(9, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+
+        List<User> users = namedParameterJdbcTemplate.query("SELECT id, user_name FROM users WHERE user_name IN (:userNames)",
+                Map.of("userNames", rows.stream().map(row -> row.user.getUserName()).collect(Collectors.toList())),
+                (resultSet, i) -> {
+                    User user = new User();
+                    user.setId(resultSet.getLong("id"));
+                    user.setUserName(resultSet.getString("user_name"));
+                    return user;
+                });
+
+        keycloakOutboxService.enqueueCreateAll(users);
+    }
+
+    private ImportRow csvRow(int row, String line, List<String> columns) {
+
+        List<String> values = splitCsvLine(line);
+        if (values.size() != columns.size()) {
+            return new ImportRow(row, null, "Expected " + columns.size() + " columns but found " + values.size() + ".");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = values.get(i).trim();
+            fields.put(columns.get(i), value.isEmpty() ? null : value);
+        }
+
+        UserDTO user = new UserDTO();
+        user.setFirstName(fields.get("firstName"));
+        user.setLastName(fields.get("lastName"));
+        user.setUserName(fields.get("userName"));
+        user.setPassWord(fields.get("passWord"));
+        user.setPhone(fields.get("phone"));
+
+        String gender = fields.get("gender");
+        if (gender != null) {
+            Optional<Gender> match = Arrays.stream(Gender.values())
+                    .filter(value -> value.name().equalsIgnoreCase(gender) || value.getValue().equalsIgnoreCase(gender))
+                    .findFirst();
+            if (match.isEmpty()) return new ImportRow(row, user, "Unknown gender: " + gender);
+            user.setGender(match.get());
+        }
+
+        String role = fields.get("role");
+        return resolveRole(row, user, role == null ? null : new RoleDTO(null, role));
+    }
+
+    // roles come from the role cache, by id if the row has one otherwise by description
+    private ImportRow resolveRole(int row, UserDTO user, RoleDTO role) {
+        if (role == null) return new ImportRow(row, user, null);
+
+        RoleDTO resolved;
+        if (role.getId() != null) {
+            try {
+                resolved = roleService.findById(role.getId());
+            } catch (NoSuchElementException exception) {
+                resolved = null;
+            }
+        } else {
+            resolved = role.getDescription() == null ? null : roleService.findByDescription(role.getDescription());
+        }
+        if (resolved == null) {
+            return new ImportRow(row, user, "Unknown role: " + (role.getId() != null ? role.getId() : role.getDescription()));
+        }
+        user.setRole(resolved);
+        return new ImportRow(row, user, null);
+    }
+
+    private String validate(UserDTO user) {
+        // file has the password once, it is its own confirmation
+        user.setConfirmPassWord(user.getPassWord());
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(user);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private UserImportResultDTO failed(ImportRow row, String message) {
+        return new UserImportResultDTO(row.row, row.user == null ? null : row.user.getUserName(), false, message);
+    }
+
+    // fields can be quoted, "" inside quotes is one quote
+    private List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static class ImportRow {
+
+        private final int row;
+        private final UserDTO user;
+        private final String error;
+
+        private ImportRow(int row, UserDTO user, String error) {
+            this.row = row;
+            this.user = user;
+            this.error = error;
+        }
+    }
+
+}
@@ -1,25 +1,44 @@
 package com.cydeo.service.impl;
 
+import com.cydeo.annotation.ExecutionTime;
 import com.cydeo.annotation.DefaultExceptionMessage;
-import com.cydeo.dto.ProjectDTO;
-import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.CursorPageDTO;
+import com.cydeo.dto.RoleDTO;
 import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserDeactivationResultDTO;
 import com.cydeo.entity.User;
 import com.cydeo.exception.TicketingProjectException;
+import com.cydeo.mapper.CursorUtil;
 import com.cydeo.mapper.UserMapper;
 import com.cydeo.repository.UserRepository;
-import com.cydeo.service.KeycloakService;
+import com.cydeo.service.KeycloakOutboxService;
+import com.cydeo.service.PrincipalService;
 import com.cydeo.service.ProjectService;
+import com.cydeo.service.RoleService;
 import com.cydeo.service.TaskService;
 import com.cydeo.service.UserService;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@ExecutionTime
 @Service
 public class UserServiceImpl implements UserService {
 
@@ -27,16 +46,22 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final ProjectService projectService;
     private final TaskService taskService;
-    private final KeycloakService keycloakService; // I want to call createUser method in keycloak
+    private final KeycloakOutboxService keycloakOutboxService; // I want to call createUser method in keycloak, through the outbox
     private final PasswordEncoder passwordEncoder;
+    private final CursorUtil cursorUtil;
+    private final RoleService roleService;
+    private final PrincipalService principalService;
 
-    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, @Lazy ProjectService projectService, @Lazy TaskService taskService, KeycloakService keycloakService, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, @Lazy ProjectService projectService, @Lazy TaskService taskService, KeycloakOutboxService keycloakOutboxService, PasswordEncoder passwordEncoder, CursorUtil cursorUtil, RoleService roleService, PrincipalService principalService) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.projectService = projectService;
         this.taskService = taskService;
-        this.keycloakService = keycloakService;
+        this.keycloakOutboxService = keycloakOutboxService;
         this.passwordEncoder = passwordEncoder;
+        this.cursorUtil = cursorUtil;
+        this.roleService = roleService;
+        this.principalService = principalService;
     }
 
     @Override
@@ -53,6 +78,55 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    public CursorPageDTO<UserDTO> listAllUsers(String after, int limit) {
+
+        Pageable pageable = cursorUtil.limit(limit);
+        Slice<User> slice;
+        if (after == null) {
+            slice = userRepository.findFirstPageByIsDeleted(false, pageable);
+        } else {
+            String[] keys = cursorUtil.decode(after, 2);
+            slice = userRepository.findAllByIsDeletedAfter(false, keys[0], cursorUtil.toLong(keys[1]), pageable);
+        }
+
+        List<UserDTO> users = slice.stream().map(userMapper::convertToDto).collect(Collectors.toList());
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            UserDTO last = users.get(users.size() - 1);
+            // same key as the query sorts by, no first name is ''
+            nextCursor = cursorUtil.encode(Objects.toString(last.getFirstName(), ""), last.getId());
+        }
+        return new CursorPageDTO<>(users, nextCursor);
+    }
+
+    @Override
+    public CursorPageDTO<UserDTO> search(String query, String after, int limit) {
+
+        String prefix = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (prefix.isEmpty()) {
+            return new CursorPageDTO<>(List.of(), null);
+        }
+        // % and _ typed by the user are matched as they are
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        Pageable pageable = cursorUtil.limit(limit);
+        Slice<User> slice;
+        if (after == null) {
+            slice = userRepository.searchByPrefix(pattern, pageable);
+        } else {
+            slice = userRepository.searchByPrefixAfter(pattern, cursorUtil.decode(after, 1)[0], pageable);
+        }
+
+        List<UserDTO> users = slice.stream().map(userMapper::convertToDto).collect(Collectors.toList());
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            nextCursor = cursorUtil.encode(users.get(users.size() - 1).getUserName());
+        }
+        return new CursorPageDTO<>(users, nextCursor);
+    }
+
+    @Override
+    @Transactional
     public UserDTO save(UserDTO user) {
 
         user.setEnabled(true);
@@ -61,9 +135,10 @@ public class UserServiceImpl implements UserService {
         User obj = userMapper.convertToEntity(user);
         User savedUser = userRepository.save(obj);
         userRepository.save(obj);
-        keycloakService.userCreate(user);
+        keycloakOutboxService.enqueueCreate(savedUser);
         //whenever we create any user in tha database,
         // this user information is saving our authorization service
+        // it is written to the outbox in the same transaction and sent to keycloak in the background, so a slow keycloak does not slow down this request
         // only thing keycloak is holding the information about authorization stuff which is username password nothing else
         // so all the other information if you need it, you need to graph from your database
         return userMapper.convertToDto(savedUser);
@@ -79,9 +154,15 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDTO update(UserDTO user) {
 
-        user.setPassWord(passwordEncoder.encode(user.getPassWord())); // for testing part
         //Find current user
         User user1 = userRepository.findByUserNameAndIsDeleted(user.getUserName(), false);  //has id
+        // edits without a password (phone, name ...) keep the stored hash, no bcrypt at all.
+        // no matches() check for a resent password, it costs a full bcrypt round just like encode()
+        if (isBlank(user.getPassWord())) {
+            user.setPassWord(user1.getPassWord());
+        } else {
+            user.setPassWord(passwordEncoder.encode(user.getPassWord())); // for testing part
+        }
         //Map update user dto to entity object
         User convertedUser = userMapper.convertToEntity(user);   // has id?
         //set id to the converted object
@@ -89,6 +170,7 @@ public class UserServiceImpl implements UserService {
 
         //save the updated user in the db
         User updatedUser = userRepository.save(convertedUser);
+        principalService.evict(user.getUserName());
 
         return userMapper.convertToDto(updatedUser);
 
@@ -96,6 +178,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @DefaultExceptionMessage(defaultMessage = " Failed to delete user")
+    @Transactional
     public void delete(String username) throws TicketingProjectException {
 
         User user = userRepository.findByUserNameAndIsDeleted(username, false);
@@ -104,28 +187,70 @@ public class UserServiceImpl implements UserService {
             user.setIsDeleted(true);
             user.setUserName(user.getUserName() + "-" + user.getId());  // harold@manager.com-2
             userRepository.save(user);
+            keycloakOutboxService.enqueueDelete(user, username);
+            principalService.evict(username);
         }else{
-            throw new TicketingProjectException("User can noy be deleted");
+            throw new TicketingProjectException("User can not be deleted");
             //my custom exception
         }
-        keycloakService.delete(username);
+    }
+
+    // same rules as delete for many users: one query per role for the deletability check, one update for the soft delete
+    @Override
+    @Transactional
+    public List<UserDeactivationResultDTO> deactivateAll(List<String> usernames) {
+
+        Set<String> distinctUsernames = new LinkedHashSet<>(usernames);
+        Map<String, User> usersByName = userRepository.findAllWithRoleByUserNameIn(distinctUsernames).stream()
+                .collect(Collectors.toMap(User::getUserName, Function.identity()));
+
+        Map<String, List<Long>> userIdsByRole = usersByName.values().stream()
+                .collect(Collectors.groupingBy(user -> user.getRole().getDescription(),
+                        Collectors.mapping(User::getId, Collectors.toList())));
+        Set<Long> managersWithProjects = projectService.findAllManagersWithNonCompletedProjects(userIdsByRole.getOrDefault("Manager", List.of()));
+        Set<Long> employeesWithTasks = taskService.findAllEmployeesWithNonCompletedTasks(userIdsByRole.getOrDefault("Employee", List.of()));
+
+        List<UserDeactivationResultDTO> results = new ArrayList<>();
+        Map<Long, String> deactivatedUserNamesById = new LinkedHashMap<>();
+        for (String username : distinctUsernames) {
+            User user = usersByName.get(username);
+            if (user == null) {
+                results.add(new UserDeactivationResultDTO(username, false, "User not found."));
+            } else if (managersWithProjects.contains(user.getId()) || employeesWithTasks.contains(user.getId())) {
+                results.add(new UserDeactivationResultDTO(username, false, "User can not be deleted"));
+            } else {
+                deactivatedUserNamesById.put(user.getId(), username);
+                results.add(new UserDeactivationResultDTO(username, true, null));
+            }
+        }
+
+        if (!deactivatedUserNamesById.isEmpty()) {
+            userRepository.softDeleteAllByIdIn(deactivatedUserNamesById.keySet(), LocalDateTime.now(), 1L);
+            keycloakOutboxService.enqueueDeleteAll(deactivatedUserNamesById);
+            deactivatedUserNamesById.values().forEach(principalService::evict);
+        }
+        return results;
     }
 
     @Override
     public List<UserDTO> listAllByRole(String role) {
-        List<User> users = userRepository.findByRoleDescriptionIgnoreCaseAndIsDeleted(role, false);
+        RoleDTO roleDTO = roleService.findByDescription(role);
+        if (roleDTO == null) return List.of();
+        List<User> users = userRepository.findAllByRoleIdAndIsDeleted(roleDTO.getId(), false);
         return users.stream().map(userMapper::convertToDto).collect(Collectors.toList());
     }
 
+    private boolean isBlank(String password) {
+        return password == null || password.isBlank();
+    }
+
     private boolean checkIfUserCanBeDeleted(User user) {
 
         switch (user.getRole().getDescription()) {
             case "Manager":
-                List<ProjectDTO> projectDTOList = projectService.listAllNonCompletedByAssignedManager(userMapper.convertToDto(user));
-                return projectDTOList.size() == 0;
+                return !projectService.existsNonCompletedByAssignedManager(user.getId());
             case "Employee":
-                List<TaskDTO> taskDTOList = taskService.listAllNonCompletedByAssignedEmployee(userMapper.convertToDto(user));
-                return taskDTOList.size() == 0;
+                return !taskService.existsNonCompletedByAssignedEmployee(user.getId());
             default:
                 return true;
         }
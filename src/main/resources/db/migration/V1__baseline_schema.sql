@@ -0,0 +1,70 @@
+-- the four tables hibernate (ddl-auto=update) created before the migrations, databases that already have them are baselined at this version
+-- tables added later get their own migration, a baselined database never runs this one
+
+CREATE TABLE roles
+(
+    id                    BIGSERIAL PRIMARY KEY,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    description           VARCHAR(255)
+);
+
+CREATE TABLE users
+(
+    id                    BIGSERIAL PRIMARY KEY,
+    insert_date_time      TIMESTAMP    NOT NULL,
+    insert_user_id        BIGINT       NOT NULL,
+    is_deleted            BOOLEAN,
+    last_update_date_time TIMESTAMP    NOT NULL,
+    last_update_user_id   BIGINT       NOT NULL,
+    enabled               BOOLEAN      NOT NULL,
+    first_name            VARCHAR(255),
+    gender                VARCHAR(255),
+    last_name             VARCHAR(255),
+    pass_word             VARCHAR(255) NOT NULL,
+    phone                 VARCHAR(255),
+    user_name             VARCHAR(255) NOT NULL,
+    role_id               BIGINT,
+    CONSTRAINT uk_k8d0f2n7n88w1a16yhua64onx UNIQUE (user_name),
+    CONSTRAINT fkp56c1712k691lhsyewcssf40f FOREIGN KEY (role_id) REFERENCES roles
+);
+
+CREATE TABLE projects
+(
+    id                    BIGSERIAL PRIMARY KEY,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    end_date              DATE,
+    project_code          VARCHAR(255),
+    project_detail        VARCHAR(255),
+    project_name          VARCHAR(255),
+    project_status        VARCHAR(255),
+    start_date            DATE,
+    manager_id            BIGINT,
+    CONSTRAINT uk_1batb7mq0elcfcs3d6maqo6sg UNIQUE (project_code),
+    CONSTRAINT fkurl8wb4qjly2c5xwdcpetuxs FOREIGN KEY (manager_id) REFERENCES users
+);
+
+CREATE TABLE tasks
+(
+    id                    BIGSERIAL PRIMARY KEY,
+    insert_date_time      TIMESTAMP NOT NULL,
+    insert_user_id        BIGINT    NOT NULL,
+    is_deleted            BOOLEAN,
+    last_update_date_time TIMESTAMP NOT NULL,
+    last_update_user_id   BIGINT    NOT NULL,
+    assigned_date         DATE,
+    task_detail           VARCHAR(255),
+    task_status           VARCHAR(255),
+    task_subject          VARCHAR(255),
+    assigned_employee_id  BIGINT,
+    project_id            BIGINT,
+    CONSTRAINT fk7iqrtjp2fehh8fpmy5ptd425u FOREIGN KEY (assigned_employee_id) REFERENCES users,
+    CONSTRAINT fksfhn82y57i3k9uxww1s007acc FOREIGN KEY (project_id) REFERENCES projects
+);
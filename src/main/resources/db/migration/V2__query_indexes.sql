@@ -0,0 +1,17 @@
+-- indexes for the predicates of the repository queries
+-- projects and tasks are always read with is_deleted = false (@Where on the entity), so their indexes only keep those rows
+
+-- findByUserNameAndIsDeleted, findPrincipalByUserName (logged-in user)
+CREATE INDEX idx_users_user_name_is_deleted ON users (user_name, is_deleted);
+
+-- findAllByRoleIdAndIsDeleted (users by role)
+CREATE INDEX idx_users_role_id_active ON users (role_id) WHERE is_deleted = false;
+
+-- task counts of a project, deleting/completing all tasks of a project
+CREATE INDEX idx_tasks_project_id_task_status ON tasks (project_id, task_status) WHERE is_deleted = false;
+
+-- tasks of the logged-in employee, open tasks of employees before deleting them
+CREATE INDEX idx_tasks_assigned_employee_id_task_status ON tasks (assigned_employee_id, task_status) WHERE is_deleted = false;
+
+-- projects of the logged-in manager, open projects of managers before deleting them
+CREATE INDEX idx_projects_manager_id_project_status ON projects (manager_id, project_status) WHERE is_deleted = false;
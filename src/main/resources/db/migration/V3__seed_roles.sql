@@ -0,0 +1,5 @@
+-- was data.sql, roles are only added when they are not there (baselined databases already have them)
+INSERT INTO roles(insert_date_time, insert_user_id, is_deleted, last_update_date_time, last_update_user_id, description)
+SELECT '2022-01-05 00:00:00', 1, false, '2022-01-05 00:00:00', 1, description
+FROM (VALUES ('Admin'), ('Manager'), ('Employee')) AS seed(description)
+WHERE NOT EXISTS(SELECT 1 FROM roles r WHERE r.description = seed.description);
@@ -0,0 +1,5 @@
+-- user search (/api/v1/user/search), case-insensitive prefix match on username, first and last name
+-- text_pattern_ops lets LIKE 'abc%' use the index whatever the collation of the database is
+CREATE INDEX idx_users_lower_user_name_pattern ON users (lower(user_name) text_pattern_ops);
+CREATE INDEX idx_users_lower_first_name_pattern ON users (lower(first_name) text_pattern_ops);
+CREATE INDEX idx_users_lower_last_name_pattern ON users (lower(last_name) text_pattern_ops);
@@ -0,0 +1,28 @@
+-- tables that came after the baseline, also run on databases baselined at V1
+-- if not exists: ddl-auto=update may already have created them before the migrations
+
+-- task counters per project (ProjectTaskStats)
+CREATE TABLE IF NOT EXISTS project_task_stats
+(
+    project_id             BIGINT PRIMARY KEY,
+    complete_task_counts   BIGINT NOT NULL,
+    unfinished_task_counts BIGINT NOT NULL
+);
+
+-- keycloak calls of user create/update/delete, retried by the poller (KeycloakOutbox)
+CREATE TABLE IF NOT EXISTS keycloak_outbox
+(
+    id                     BIGSERIAL PRIMARY KEY,
+    attempts               INTEGER      NOT NULL,
+    insert_date_time       TIMESTAMP    NOT NULL,
+    last_error             VARCHAR(1000),
+    next_attempt_date_time TIMESTAMP    NOT NULL,
+    operation              VARCHAR(255) NOT NULL,
+    processed_date_time    TIMESTAMP,
+    status                 VARCHAR(255) NOT NULL,
+    user_id                BIGINT       NOT NULL,
+    user_name              VARCHAR(255) NOT NULL
+);
+
+-- keycloak outbox poller, events that are due
+CREATE INDEX IF NOT EXISTS idx_keycloak_outbox_status_next_attempt ON keycloak_outbox (status, next_attempt_date_time);
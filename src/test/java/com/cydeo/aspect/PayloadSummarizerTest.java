@@ -0,0 +1,41 @@
+package com.cydeo.aspect;
+
+import com.cydeo.dto.ResponseWrapper;
+import com.cydeo.dto.TaskDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadSummarizerTest {
+
+    @Test
+    void should_summarize_a_list_response_without_rendering_the_elements() {
+        List<TaskDTO> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new TaskDTO());
+        }
+        ResponseWrapper wrapper = ResponseWrapper.builder().success(true).code(200).data(tasks).nextCursor("abc").build();
+
+        assertThat(PayloadSummarizer.summarize(ResponseEntity.ok(wrapper)))
+                .isEqualTo("200 ResponseWrapper(code=200, data=ArrayList<TaskDTO>[size=5000], nextCursor=true)");
+    }
+
+    @Test
+    void should_summarize_other_payloads_by_type_and_size() {
+        assertThat(PayloadSummarizer.summarize(null)).isEqualTo("null");
+        assertThat(PayloadSummarizer.summarize(new ArrayList<>())).isEqualTo("ArrayList[size=0]");
+        assertThat(PayloadSummarizer.summarize(new HashMap<>(Map.of("a", 1)))).isEqualTo("HashMap[size=1]");
+        assertThat(PayloadSummarizer.summarize(new byte[16])).isEqualTo("byte[size=16]");
+        assertThat(PayloadSummarizer.summarize("secret")).isEqualTo("String[length=6]");
+        assertThat(PayloadSummarizer.summarize(new ResponseWrapper("Task is deleted", HttpStatus.OK)))
+                .isEqualTo("ResponseWrapper(code=200, data=null, nextCursor=false)");
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.cydeo.aspect;
+
+import com.cydeo.annotation.ExecutionTime;
+import com.cydeo.exception.TicketingProjectException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PerformanceAspectTest {
+
+    private PrometheusMeterRegistry meterRegistry;
+    private TimedService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TimedService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new PerformanceAspect(meterRegistry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void should_time_every_method_of_an_annotated_class() {
+        assertThat(service.find("PR001")).isEqualTo("PR001");
+        service.find("PR002");
+
+        Timer timer = meterRegistry.get(PerformanceAspect.METRIC_NAME)
+                .tags("class", "TimedService", "method", "find", "outcome", "success", "exception", "none").timer();
+        assertThat(timer.count()).isEqualTo(2);
+        // buckets for histogram_quantile on the prometheus side
+        assertThat(meterRegistry.scrape()).contains("method_execution_seconds_bucket{class=\"TimedService\",exception=\"none\",method=\"find\",outcome=\"success\",le=");
+    }
+
+    @Test
+    void should_rethrow_the_same_exception_and_record_it() {
+        assertThatThrownBy(() -> service.complete("PR001"))
+                .isInstanceOf(TicketingProjectException.class)
+                .hasMessage("Project not found");
+
+        Timer timer = meterRegistry.get(PerformanceAspect.METRIC_NAME)
+                .tags("method", "complete", "outcome", "error", "exception", "TicketingProjectException").timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @ExecutionTime
+    static class TimedService {
+
+        public String find(String code) {
+            return code;
+        }
+
+        public void complete(String code) throws TicketingProjectException {
+            throw new TicketingProjectException("Project not found");
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.cydeo.aspect;
+
+import com.cydeo.config.TracingFilter;
+import com.cydeo.entity.Project;
+import com.cydeo.exception.TicketingProjectException;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TracingAspectTest {
+
+    private final InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+            .build();
+
+    private final Tracer tracer = tracerProvider.get("test");
+    private ProjectCodes repository;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ProjectCodesImpl());
+        factory.addAspect(new TracingAspect(tracer));
+        repository = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    void should_nest_spans_under_the_request_span() {
+        // what TracingFilter does for a request
+        Span request = tracer.spanBuilder("HTTP GET").startSpan();
+        try (Scope ignored = request.makeCurrent()) {
+            assertThat(repository.find("PR001")).isEqualTo("PR001");
+        }
+        request.end();
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        // named after the repository interface, not the proxy class
+        assertThat(spans).extracting(SpanData::getName).containsExactly("ProjectCodes.find", "HTTP GET");
+        assertThat(spans.get(0).getTraceId()).isEqualTo(spans.get(1).getTraceId());
+        assertThat(spans.get(0).getParentSpanId()).isEqualTo(spans.get(1).getSpanId());
+    }
+
+    @Test
+    void should_put_the_trace_id_in_the_logs_only_during_the_call() {
+        assertThat(repository.traceId()).isEqualTo(spanExporter.getFinishedSpanItems().get(0).getTraceId());
+        assertThat(MDC.get(TracingFilter.TRACE_ID)).isNull();
+    }
+
+    @Test
+    void should_record_the_exception_and_rethrow_it() {
+        assertThatThrownBy(() -> repository.complete("PR001"))
+                .isInstanceOf(TicketingProjectException.class)
+                .hasMessage("Project not found");
+
+        SpanData span = spanExporter.getFinishedSpanItems().get(0);
+        assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+        assertThat(span.getEvents()).extracting(EventData::getName).containsExactly("exception");
+    }
+
+    interface ProjectCodes extends Repository<Project, Long> {
+
+        String find(String code);
+
+        String traceId();
+
+        void complete(String code) throws TicketingProjectException;
+    }
+
+    static class ProjectCodesImpl implements ProjectCodes {
+
+        @Override
+        public String find(String code) {
+            return code;
+        }
+
+        @Override
+        public String traceId() {
+            return MDC.get(TracingFilter.TRACE_ID);
+        }
+
+        @Override
+        public void complete(String code) throws TicketingProjectException {
+            throw new TicketingProjectException("Project not found");
+        }
+    }
+
+}
@@ -0,0 +1,457 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.config.KeycloakProperties;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskStats;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Gender;
+import com.cydeo.enums.Status;
+import com.cydeo.repository.ProjectRepository;
+import com.cydeo.repository.ProjectTaskStatsRepository;
+import com.cydeo.repository.RoleRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.support.KeycloakAdminStub;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+End to end load test of the REST API, runs without network access and without keycloak.
+The application is started on a random port with the in memory database of the test profile (h2 in postgres mode),
+tokens of the Admin, Manager and Employee users are signed here with a realm key the application reads from a file (auth.mode=jwt),
+and the keycloak admin calls of the outbox go to KeycloakAdminStub.
+Virtual users send a weighted mix of requests of all three roles for a fixed time,
+then throughput and p50/p95/p99 latency of every endpoint are logged.
+Not part of the normal build, run it with: mvn test -Pbenchmark -Dtest=ApiLoadBenchmark
+Load can be changed with -Dloadtest.users=32 -Dloadtest.duration=60 -Dloadtest.warmup=10 (seconds)
+and the data with -Dloadtest.managers=10 -Dloadtest.employees=50 -Dloadtest.projects-per-manager=5 -Dloadtest.tasks-per-project=20
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "auth.mode=jwt",
+        "tracing.exporter=none",
+        // users created during the run are sent to the stub like they would be to keycloak
+        "keycloak-outbox.poll-interval=1000"})
+@ActiveProfiles("test")
+class ApiLoadBenchmark {
+
+    private static final RSAKey realmKey = generateKey();
+    private static KeycloakAdminStub keycloakStub;
+
+    private static final int MANAGERS = Integer.getInteger("loadtest.managers", 10);
+    private static final int EMPLOYEES = Integer.getInteger("loadtest.employees", 50);
+    private static final int PROJECTS_PER_MANAGER = Integer.getInteger("loadtest.projects-per-manager", 5);
+    private static final int TASKS_PER_PROJECT = Integer.getInteger("loadtest.tasks-per-project", 20);
+
+    @DynamicPropertySource
+    static void offline(DynamicPropertyRegistry registry) throws IOException {
+        Path jwksFile = Files.createTempFile("realm-certs", ".json");
+        jwksFile.toFile().deleteOnExit();
+        Files.writeString(jwksFile, new JWKSet(realmKey.toPublicJWK()).toString());
+        registry.add("keycloak-jwt.jwks-file", () -> "file:" + jwksFile);
+
+        keycloakStub = new KeycloakAdminStub(300);
+        registry.add("keycloak.auth-server-url", keycloakStub::getUrl);
+    }
+
+    @AfterAll
+    static void stopKeycloakStub() {
+        keycloakStub.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private KeycloakProperties keycloakProperties;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private ProjectTaskStatsRepository projectTaskStatsRepository;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    // user names and project codes created during the run have to be unique
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private Role employeeRole;
+    private final Map<String, String> tokens = new HashMap<>();
+    private List<User> admins;
+    private List<User> managers;
+    private List<Project> projects;
+    private List<Task> tasks;
+
+    private List<Operation> operations;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+        Role adminRole = roleRepository.save(new Role("Admin"));
+        Role managerRole = roleRepository.save(new Role("Manager"));
+        employeeRole = roleRepository.save(new Role("Employee"));
+
+        admins = userRepository.saveAll(List.of(user("admin@admin.com", adminRole)));
+        managers = userRepository.saveAll(IntStream.range(0, MANAGERS)
+                .mapToObj(i -> user("manager" + i + "@manager.com", managerRole))
+                .collect(Collectors.toList()));
+        List<User> employees = userRepository.saveAll(IntStream.range(0, EMPLOYEES)
+                .mapToObj(i -> user("employee" + i + "@employee.com", employeeRole))
+                .collect(Collectors.toList()));
+        for (User user : userRepository.findAll()) {
+            tokens.put(user.getUserName(), token(user));
+        }
+
+        projects = projectRepository.saveAll(IntStream.range(0, MANAGERS * PROJECTS_PER_MANAGER)
+                .mapToObj(i -> project("PR" + i, managers.get(i % MANAGERS)))
+                .collect(Collectors.toList()));
+        // a third of the tasks are complete, they show up in the archive of the employees
+        tasks = taskRepository.saveAll(IntStream.range(0, projects.size() * TASKS_PER_PROJECT)
+                .mapToObj(i -> task(projects.get(i / TASKS_PER_PROJECT), employees.get(i % EMPLOYEES), i % 3 == 0 ? Status.COMPLETE : Status.OPEN))
+                .collect(Collectors.toList()));
+        projectTaskStatsRepository.saveAll(projects.stream()
+                .map(project -> new ProjectTaskStats(project.getId(), (TASKS_PER_PROJECT + 2) / 3, TASKS_PER_PROJECT - (TASKS_PER_PROJECT + 2) / 3))
+                .collect(Collectors.toList()));
+
+        // what each role does most, weights add up to 100: employees 50, managers 40, admins 10
+        operations = List.of(
+                new Operation("GET /api/v1/task/employee/pending-tasks", 25, () -> get("/api/v1/task/employee/pending-tasks", anyEmployee())),
+                new Operation("GET /api/v1/task/employee/archive", 10, () -> get("/api/v1/task/employee/archive", anyEmployee())),
+                new Operation("PUT /api/v1/task/employee/update/", 15, this::employeeUpdatesTask),
+                new Operation("GET /api/v1/project", 10, () -> get("/api/v1/project?limit=20", any(managers))),
+                new Operation("GET /api/v1/project/{code}", 8, () -> get("/api/v1/project/" + any(projects).getProjectCode(), any(managers))),
+                new Operation("GET /api/v1/task", 8, () -> get("/api/v1/task?limit=20", any(managers))),
+                new Operation("GET /api/v1/task/{id}", 6, () -> get("/api/v1/task/" + any(tasks).getId(), any(managers))),
+                new Operation("GET /api/v1/user/search", 4, () -> get("/api/v1/user/search?q=emp&limit=20", any(managers))),
+                new Operation("POST /api/v1/task", 4, this::managerCreatesTask),
+                new Operation("GET /api/v1/user", 4, () -> get("/api/v1/user?limit=20", any(admins))),
+                new Operation("GET /api/v1/user/{username}", 3, () -> get("/api/v1/user/" + any(managers).getUserName(), any(admins))),
+                new Operation("POST /api/v1/project", 2, this::adminCreatesProject),
+                new Operation("POST /api/v1/user", 1, this::adminCreatesUser));
+    }
+
+    @Test
+    void mixed_load() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 16);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+
+        // jit, connection and thread pools, the numbers of the warmup are thrown away
+        run(users, warmup);
+        Map<String, EndpointStats> results = run(users, duration);
+
+        report(users, duration, results);
+        assertThat(results.values()).allSatisfy(stats -> assertThat(stats.errors).as(stats.lastError).isZero());
+        assertThat(keycloakStub.getAdminRequests()).isPositive();
+    }
+
+    // every virtual user sends one request after the other, results are merged when the time is up
+    private Map<String, EndpointStats> run(int users, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        try {
+            List<Future<Map<String, EndpointStats>>> virtualUsers = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                virtualUsers.add(executor.submit(() -> virtualUser(deadline)));
+            }
+            Map<String, EndpointStats> results = new TreeMap<>();
+            for (Future<Map<String, EndpointStats>> virtualUser : virtualUsers) {
+                virtualUser.get().forEach((endpoint, stats) -> results.computeIfAbsent(endpoint, e -> new EndpointStats()).add(stats));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, EndpointStats> virtualUser(long deadline) throws Exception {
+        Map<String, EndpointStats> results = new HashMap<>();
+        while (System.nanoTime() < deadline) {
+            Operation operation = nextOperation();
+            HttpRequest request = operation.request.get();
+
+            long start = System.nanoTime();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - start;
+
+            results.computeIfAbsent(operation.endpoint, e -> new EndpointStats()).record(latency, response);
+        }
+        return results;
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(100);
+        for (Operation operation : operations) {
+            pick -= operation.weight;
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private void report(int users, Duration duration, Map<String, EndpointStats> results) {
+        double seconds = duration.toMillis() / 1000.0;
+        StringBuilder table = new StringBuilder(String.format("%n%-42s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms", "Max ms"));
+        EndpointStats total = new EndpointStats();
+        results.forEach((endpoint, stats) -> {
+            table.append(stats.row(endpoint, seconds));
+            total.add(stats);
+        });
+        table.append(total.row("Total", seconds));
+        log.info("API load test -> Virtual users: {}, Duration: {} s{}", users, duration.toSeconds(), table);
+    }
+
+    private HttpRequest.Builder request(String path, User user) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + tokens.get(user.getUserName()));
+    }
+
+    private HttpRequest get(String path, User user) {
+        return request(path, user).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, User user, Object body) {
+        try {
+            return request(path, user)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // employee starts or pauses one of their tasks, the complete ones stay in the archive
+    private HttpRequest employeeUpdatesTask() {
+        Task task = any(tasks);
+        while (task.getTaskStatus() == Status.COMPLETE) {
+            task = any(tasks);
+        }
+        Status status = ThreadLocalRandom.current().nextBoolean() ? Status.IN_PROGRESS : Status.OPEN;
+        return send("PUT", "/api/v1/task/employee/update/", task.getAssignedEmployee(), Map.of(
+                "id", task.getId(),
+                "project", Map.of("id", task.getProject().getId()),
+                "assignedEmployee", Map.of("id", task.getAssignedEmployee().getId()),
+                "taskSubject", task.getTaskSubject(),
+                "taskDetail", task.getTaskDetail(),
+                "taskStatus", status));
+    }
+
+    private HttpRequest managerCreatesTask() {
+        Task task = any(tasks);
+        return send("POST", "/api/v1/task", task.getProject().getAssignedManager(), Map.of(
+                "project", Map.of("id", task.getProject().getId()),
+                "assignedEmployee", Map.of("id", task.getAssignedEmployee().getId()),
+                "taskSubject", "Load test task " + sequence.incrementAndGet(),
+                "taskDetail", "Created by the load test"));
+    }
+
+    private HttpRequest adminCreatesProject() {
+        return send("POST", "/api/v1/project", any(admins), Map.of(
+                "projectName", "Load test project",
+                "projectCode", "LT" + sequence.incrementAndGet(),
+                "assignedManager", Map.of("id", any(managers).getId()),
+                "startDate", LocalDate.now().toString(),
+                "endDate", LocalDate.now().plusMonths(3).toString(),
+                "projectDetail", "Created by the load test"));
+    }
+
+    // bcrypt and the outbox, the keycloak call itself happens later in the background
+    private HttpRequest adminCreatesUser() {
+        Map<String, Object> user = new HashMap<>();
+        user.put("firstName", "Load");
+        user.put("lastName", "Test");
+        user.put("userName", "loadtest" + sequence.incrementAndGet() + "@employee.com");
+        user.put("passWord", "Abc12345");
+        user.put("confirmPassWord", "Abc12345");
+        user.put("phone", "5551234567");
+        user.put("role", Map.of("id", employeeRole.getId(), "description", employeeRole.getDescription()));
+        user.put("gender", Gender.FEMALE);
+        return send("POST", "/api/v1/user", any(admins), user);
+    }
+
+    private User anyEmployee() {
+        return any(tasks).getAssignedEmployee();
+    }
+
+    private static <T> T any(List<T> list) {
+        return list.get(ThreadLocalRandom.current().nextInt(list.size()));
+    }
+
+    private User user(String userName, Role role) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setFirstName(userName.substring(0, userName.indexOf('@')));
+        user.setLastName("Load");
+        user.setPassWord("Abc1");
+        user.setEnabled(true);
+        user.setPhone("5551234567");
+        user.setGender(Gender.MALE);
+        user.setRole(role);
+        return user;
+    }
+
+    private Project project(String projectCode, User manager) {
+        Project project = new Project();
+        project.setProjectCode(projectCode);
+        project.setProjectName("Project " + projectCode);
+        project.setProjectDetail("Seeded by the load test");
+        project.setProjectStatus(Status.IN_PROGRESS);
+        project.setStartDate(LocalDate.now().minusMonths(1));
+        project.setEndDate(LocalDate.now().plusMonths(2));
+        project.setAssignedManager(manager);
+        return project;
+    }
+
+    private Task task(Project project, User employee, Status status) {
+        Task task = new Task();
+        task.setTaskSubject("Task of " + project.getProjectCode());
+        task.setTaskDetail("Seeded by the load test");
+        task.setTaskStatus(status);
+        task.setAssignedDate(LocalDate.now().minusDays(7));
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        return task;
+    }
+
+    private String token(User user) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(keycloakProperties.getRealmUrl())
+                .subject(user.getId().toString())
+                .claim("preferred_username", user.getUserName())
+                .claim("resource_access", Map.of(keycloakProperties.getClientId(), Map.of("roles", List.of(user.getRole().getDescription()))))
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(realmKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(realmKey));
+        return jwt.serialize();
+    }
+
+    private static RSAKey generateKey() {
+        try {
+            return new RSAKeyGenerator(2048).keyID("realm-key").generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // one kind of request, latencies are grouped by the endpoint
+    private static class Operation {
+
+        private final String endpoint;
+        private final int weight;
+        private final Supplier<HttpRequest> request;
+
+        Operation(String endpoint, int weight, Supplier<HttpRequest> request) {
+            this.endpoint = endpoint;
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+
+    // latencies of one endpoint, sorted once at the end for the percentiles
+    private static class EndpointStats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private String lastError = "no error";
+
+        void record(long latencyNanos, HttpResponse<String> response) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (response.statusCode() >= 400) {
+                errors++;
+                lastError = response.request().method() + " " + response.uri() + " -> " + response.statusCode() + " " + response.body();
+            }
+        }
+
+        void add(EndpointStats other) {
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length, count + other.count));
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+            if (other.errors > 0) {
+                lastError = other.lastError;
+            }
+        }
+
+        String row(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format("%-42s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, count, errors, count / seconds,
+                    millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99), millis(sorted, 1.0));
+        }
+
+        // nearest rank
+        private static double millis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.config.KeycloakAdminConfig;
+import com.cydeo.config.KeycloakProperties;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.service.impl.KeycloakServiceImpl;
+import com.cydeo.support.KeycloakAdminStub;
+import io.opentelemetry.api.OpenTelemetry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Per call latency of user provisioning against a local stub of the keycloak admin API.
+Old way: a new admin client (new http client and a new master token) for every call, closed at the end.
+New way: the shared admin client from KeycloakAdminConfig.
+Not part of the normal build, run it with: mvn test -Pbenchmark -Dtest=KeycloakAdminClientBenchmark
+Number of measured calls can be changed with -Dbenchmark.keycloak-calls=1000
+ */
+@Slf4j
+@Tag("benchmark")
+class KeycloakAdminClientBenchmark {
+
+    private static final int WARMUP_CALLS = 100;
+
+    private final int calls = Integer.getInteger("benchmark.keycloak-calls", 500);
+
+    private KeycloakAdminStub stub;
+    private KeycloakProperties properties;
+    private Keycloak sharedClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new KeycloakAdminStub(300);
+        properties = properties(stub.getUrl());
+        sharedClient = new KeycloakAdminConfig().keycloakAdminClient(properties, OpenTelemetry.noop().getTracer("test"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharedClient.close();
+        stub.close();
+    }
+
+    @Test
+    void compare_per_call_client_with_shared_client() {
+        KeycloakServiceImpl sharedService = new KeycloakServiceImpl(properties, sharedClient);
+
+        long[] perCallCreate = measure(i -> perCallClient(service -> service.userCreate(user(i))));
+        long[] sharedCreate = measure(i -> sharedService.userCreate(user(i)));
+        long[] perCallDelete = measure(i -> perCallClient(service -> service.delete(userName(i))));
+        int tokensBefore = stub.getTokenRequests();
+        long[] sharedDelete = measure(i -> sharedService.delete(userName(i)));
+
+        report("userCreate", perCallCreate, sharedCreate);
+        report("delete", perCallDelete, sharedDelete);
+
+        // shared client already had its token, measured calls did not ask for another one
+        assertThat(stub.getTokenRequests()).isEqualTo(tokensBefore);
+        assertThat(median(sharedDelete)).isLessThan(median(perCallDelete));
+    }
+
+    // what KeycloakServiceImpl did before: Keycloak.getInstance() on every call and close() at the end
+    private void perCallClient(Consumer<KeycloakServiceImpl> call) {
+        Keycloak keycloak = Keycloak.getInstance(properties.getAuthServerUrl(), properties.getMasterRealm(),
+                properties.getMasterUser(), properties.getMasterUserPswd(), properties.getMasterClient());
+        try {
+            call.accept(new KeycloakServiceImpl(properties, keycloak));
+        } finally {
+            keycloak.close();
+        }
+    }
+
+    private long[] measure(Consumer<Integer> call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.accept(i);
+        }
+        long[] nanos = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            call.accept(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private void report(String operation, long[] perCall, long[] shared) {
+        log.info("Keycloak {} -> Calls: {}, Per call client p50/p99: {}/{} us, Shared client p50/p99: {}/{} us",
+                operation, calls,
+                median(perCall) / 1000, percentile(perCall, 0.99) / 1000,
+                median(shared) / 1000, percentile(shared, 0.99) / 1000);
+    }
+
+    private long median(long[] sorted) {
+        return percentile(sorted, 0.5);
+    }
+
+    private long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))];
+    }
+
+    private static KeycloakProperties properties(String url) {
+        KeycloakProperties properties = new KeycloakProperties();
+        properties.setAuthServerUrl(url);
+        properties.setRealm("cydeo-dev");
+        properties.setClientId("ticketing-app");
+        properties.setMasterRealm("master");
+        properties.setMasterUser("admin");
+        properties.setMasterUserPswd("admin");
+        properties.setMasterClient("master-client");
+        properties.setAdminConnectionPoolSize(20);
+        properties.setAdminConnectTimeout(Duration.ofSeconds(5));
+        properties.setAdminReadTimeout(Duration.ofSeconds(10));
+        properties.setAdminConnectionCheckoutTimeout(Duration.ofSeconds(5));
+        properties.setAdminTokenMinValidity(Duration.ofSeconds(30));
+        return properties;
+    }
+
+    private String userName(int i) {
+        return "user" + i + "@employee.com";
+    }
+
+    private UserDTO user(int i) {
+        UserDTO user = new UserDTO();
+        user.setUserName(userName(i));
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassWord("Abc1");
+        user.setRole(new RoleDTO(3L, "Employee"));
+        return user;
+    }
+
+}
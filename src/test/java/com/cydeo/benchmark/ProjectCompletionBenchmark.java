@@ -0,0 +1,188 @@
+package com.cydeo.benchmark;
+
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.CursorUtil;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.repository.ProjectRepository;
+import com.cydeo.repository.RoleRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.UserService;
+import com.cydeo.service.impl.PrincipalServiceImpl;
+import com.cydeo.service.impl.ProjectServiceImpl;
+import com.cydeo.service.impl.ProjectTaskStatsServiceImpl;
+import com.cydeo.service.impl.TaskServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Compares completing a project the old way (every task mapped to a DTO and updated one by one)
+with the set based update ProjectServiceImpl.complete is doing now.
+Not part of the normal build, run it with: mvn test -Pbenchmark -Dtest=ProjectCompletionBenchmark
+Task counts can be changed with -Dbenchmark.task-counts=1000,10000
+and the biggest count the per task path is measured for with -Dbenchmark.legacy-max-tasks=10000
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every service call commits on its own, like in the application
+@Import({JacksonAutoConfiguration.class, ProjectServiceImpl.class, TaskServiceImpl.class, ProjectTaskStatsServiceImpl.class, PrincipalServiceImpl.class, ProjectMapper.class, TaskMapper.class, UserMapper.class, EntityDtoMapperImpl.class, CursorUtil.class})
+class ProjectCompletionBenchmark {
+
+    @Autowired
+    private ProjectServiceImpl projectService;
+    @Autowired
+    private TaskServiceImpl taskService;
+    @Autowired
+    private TaskMapper taskMapper;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private UserService userService;
+
+    private User employee;
+
+    static Stream<Integer> taskCounts() {
+        return Arrays.stream(System.getProperty("benchmark.task-counts", "1000,10000,100000").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf);
+    }
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.save(new Role("Employee"));
+        employee = new User();
+        employee.setUserName("benchmark@employee.com");
+        employee.setPassWord("Abc1");
+        employee.setRole(role);
+        employee = userRepository.save(employee);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM project_task_stats");
+        jdbcTemplate.update("DELETE FROM tasks");
+        jdbcTemplate.update("DELETE FROM projects");
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", employee.getId());
+        jdbcTemplate.update("DELETE FROM roles WHERE id = ?", employee.getRole().getId());
+    }
+
+    @ParameterizedTest
+    @MethodSource("taskCounts")
+    void complete_project(int taskCount) {
+
+        // the per task path grows quadratically with the open session (10k tasks take minutes), so it is capped
+        String legacyResult = "skipped";
+        if (taskCount <= Integer.getInteger("benchmark.legacy-max-tasks", 10000)) {
+            Project legacyProject = createProject("LEGACY-" + taskCount, taskCount);
+            legacyResult = measure(() -> completePerTask(legacyProject.getProjectCode())) + " ms";
+        }
+
+        Project project = createProject("BULK-" + taskCount, taskCount);
+        long bulkMillis = measure(() -> projectService.complete(project.getProjectCode()));
+
+        log.info("Project completion -> Tasks: {}, Per task path: {}, Set based path: {} ms",
+                taskCount, legacyResult, bulkMillis);
+
+        assertThat(taskRepository.totalTaskCountsByProject(project.getId()).orElseThrow().getUnfinishedTaskCounts()).isZero();
+        assertThat(projectRepository.findByProjectCode(project.getProjectCode()).getProjectStatus()).isEqualTo(Status.COMPLETE);
+    }
+
+    // ProjectServiceImpl.complete and TaskServiceImpl.completeByProject before the set based update
+    private void completePerTask(String projectCode) {
+        Project project = projectRepository.findByProjectCode(projectCode);
+        project.setProjectStatus(Status.COMPLETE);
+        projectRepository.save(project);
+
+        List<Task> tasks = taskRepository.findAllByProject(project);
+        tasks.stream().map(taskMapper::convertToDto).forEach(taskDTO -> {
+            taskDTO.setTaskStatus(Status.COMPLETE);
+            taskService.update(taskDTO);
+        });
+    }
+
+    private Project createProject(String projectCode, int taskCount) {
+        Project project = new Project();
+        project.setProjectCode(projectCode);
+        project.setProjectName(projectCode);
+        project.setProjectStatus(Status.OPEN);
+        project.setAssignedManager(employee);
+        project = projectRepository.save(project);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date today = Date.valueOf(LocalDate.now());
+        Long projectId = project.getId();
+        List<Object[]> rows = IntStream.range(0, taskCount)
+                .mapToObj(i -> new Object[]{now, 1L, false, now, 1L, "Task " + i, Status.OPEN.name(), today, employee.getId(), projectId})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("INSERT INTO tasks (insert_date_time, insert_user_id, is_deleted, last_update_date_time, " +
+                "last_update_user_id, task_subject, task_status, assigned_date, assigned_employee_id, project_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return project;
+    }
+
+    // open-in-view keeps one entity manager for the whole request in the application, same here
+    private long measure(Runnable runnable) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            long start = System.nanoTime();
+            runnable.run();
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+}
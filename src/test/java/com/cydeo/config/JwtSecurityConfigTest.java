@@ -0,0 +1,119 @@
+package com.cydeo.config;
+
+import com.cydeo.controller.UserController;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.mapper.MapperUtil;
+import com.cydeo.service.UserImportService;
+import com.cydeo.service.UserService;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// auth.mode=jwt with the realm keys from a file, tokens are signed here with the same key
+@WebMvcTest(value = UserController.class, properties = "auth.mode=jwt")
+@Import({JwtSecurityConfig.class, KeycloakProperties.class})
+class JwtSecurityConfigTest {
+
+    private static final RSAKey realmKey = generateKey();
+
+    @DynamicPropertySource
+    static void jwks(DynamicPropertyRegistry registry) throws IOException {
+        Path jwksFile = Files.createTempFile("realm-certs", ".json");
+        jwksFile.toFile().deleteOnExit();
+        Files.writeString(jwksFile, new JWKSet(realmKey.toPublicJWK()).toString());
+        registry.add("keycloak-jwt.jwks-file", () -> "file:" + jwksFile);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private KeycloakProperties keycloakProperties;
+
+    @MockBean
+    private UserService userService;
+    @MockBean
+    private MapperUtil mapperUtil;
+    @MockBean
+    private UserImportService userImportService;
+
+    @Test
+    void should_allow_client_role_and_keep_no_session() throws Exception {
+        when(userService.findByUserName("john@employee.com")).thenReturn(new UserDTO());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/user/john@employee.com")
+                        .header("Authorization", "Bearer " + token(realmKey, "Admin", Instant.now().plusSeconds(300))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    @Test
+    void should_forbid_user_without_the_role() throws Exception {
+        mockMvc.perform(get("/api/v1/user/john@employee.com")
+                        .header("Authorization", "Bearer " + token(realmKey, "Employee", Instant.now().plusSeconds(300))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void should_reject_expired_or_foreign_token() throws Exception {
+        mockMvc.perform(get("/api/v1/user/john@employee.com")
+                        .header("Authorization", "Bearer " + token(realmKey, "Admin", Instant.now().minusSeconds(300))))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/v1/user/john@employee.com")
+                        .header("Authorization", "Bearer " + token(generateKey(), "Admin", Instant.now().plusSeconds(300))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String token(RSAKey key, String role, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(keycloakProperties.getRealmUrl())
+                .subject("f2b1c3a4")
+                .claim("preferred_username", "admin@admin.com")
+                .claim("resource_access", Map.of(keycloakProperties.getClientId(), Map.of("roles", List.of(role))))
+                .issueTime(new Date())
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private static RSAKey generateKey() {
+        try {
+            return new RSAKeyGenerator(2048).keyID("realm-key").generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
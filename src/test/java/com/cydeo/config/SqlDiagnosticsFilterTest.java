@@ -0,0 +1,104 @@
+package com.cydeo.config;
+
+import com.cydeo.controller.ProjectController;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.CursorUtil;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.RoleMapper;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.service.KeycloakService;
+import com.cydeo.service.ProjectService;
+import com.cydeo.service.impl.KeycloakOutboxServiceImpl;
+import com.cydeo.service.impl.PrincipalServiceImpl;
+import com.cydeo.service.impl.ProjectServiceImpl;
+import com.cydeo.service.impl.ProjectTaskStatsServiceImpl;
+import com.cydeo.service.impl.RoleServiceImpl;
+import com.cydeo.service.impl.TaskServiceImpl;
+import com.cydeo.service.impl.UserServiceImpl;
+import com.cydeo.support.SqlStatements;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JacksonAutoConfiguration.class, UserServiceImpl.class, ProjectServiceImpl.class, TaskServiceImpl.class, ProjectTaskStatsServiceImpl.class,
+        PrincipalServiceImpl.class, RoleServiceImpl.class, KeycloakOutboxServiceImpl.class, RoleMapper.class, ProjectMapper.class, TaskMapper.class,
+        UserMapper.class, EntityDtoMapperImpl.class, CursorUtil.class, SimpleMeterRegistry.class})
+class SqlDiagnosticsFilterTest {
+
+    @Autowired
+    private ProjectService projectService;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private KeycloakService keycloakService;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void should_count_the_sql_of_a_request_per_endpoint() throws Exception {
+        Role managerRole = entityManager.persist(new Role("Manager"));
+        for (int i = 1; i <= 3; i++) {
+            project("PR00" + i, user("manager" + i + "@manager.com", managerRole));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ProjectController(projectService))
+                .addFilters(new SqlDiagnosticsFilter(meterRegistry))
+                .build();
+
+        // projects with their managers and roles in one select, not one select per manager
+        mvc.perform(get("/api/v1/project"))
+                .andExpect(status().isOk())
+                .andExpect(SqlStatements.atMost(1))
+                .andExpect(SqlStatements.atMostEntities(7));
+
+        assertThat(meterRegistry.get("http.server.requests.sql.statements").tags("method", "GET", "uri", "/api/v1/project")
+                .summary().totalAmount()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.server.requests.sql.entities").tags("method", "GET", "uri", "/api/v1/project")
+                .summary().totalAmount()).isEqualTo(7);
+        assertThat(meterRegistry.get("http.server.requests.sql.time").tags("method", "GET", "uri", "/api/v1/project")
+                .timer().count()).isEqualTo(1);
+    }
+
+    private User user(String userName, Role role) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassWord("Abc1");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private void project(String code, User manager) {
+        Project project = new Project();
+        project.setProjectCode(code);
+        project.setProjectStatus(Status.OPEN);
+        project.setAssignedManager(manager);
+        entityManager.persist(project);
+    }
+
+}
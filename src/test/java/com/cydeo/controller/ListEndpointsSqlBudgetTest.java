@@ -0,0 +1,205 @@
+package com.cydeo.controller;
+
+import com.cydeo.config.KeycloakProperties;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Gender;
+import com.cydeo.enums.Status;
+import com.cydeo.repository.ProjectRepository;
+import com.cydeo.repository.RoleRepository;
+import com.cydeo.repository.TaskRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.support.KeycloakAdminStub;
+import com.cydeo.support.SqlStatements;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+Sql budget of the list endpoints, runs offline like ApiLoadBenchmark: h2 of the test profile,
+tokens signed here with a realm key the application reads from a file (auth.mode=jwt), keycloak admin calls go to KeycloakAdminStub.
+Every list has rows of several managers/employees, a select per row would go over the budget.
+ */
+@SpringBootTest(properties = {"auth.mode=jwt", "tracing.exporter=none"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListEndpointsSqlBudgetTest {
+
+    private static final RSAKey realmKey = generateKey();
+    private static KeycloakAdminStub keycloakStub;
+
+    @DynamicPropertySource
+    static void offline(DynamicPropertyRegistry registry) throws IOException {
+        Path jwksFile = Files.createTempFile("realm-certs", ".json");
+        jwksFile.toFile().deleteOnExit();
+        Files.writeString(jwksFile, new JWKSet(realmKey.toPublicJWK()).toString());
+        registry.add("keycloak-jwt.jwks-file", () -> "file:" + jwksFile);
+
+        keycloakStub = new KeycloakAdminStub(300);
+        registry.add("keycloak.auth-server-url", keycloakStub::getUrl);
+    }
+
+    @AfterAll
+    static void stopKeycloakStub() {
+        keycloakStub.close();
+    }
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private KeycloakProperties keycloakProperties;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private String adminToken;
+    private String managerToken;
+
+    @BeforeAll
+    void setUp() throws JOSEException {
+        Role adminRole = roleRepository.save(new Role("Admin"));
+        Role managerRole = roleRepository.save(new Role("Manager"));
+        Role employeeRole = roleRepository.save(new Role("Employee"));
+
+        User admin = userRepository.save(user("admin@admin.com", adminRole));
+        List<User> managers = userRepository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> user("manager" + i + "@manager.com", managerRole))
+                .collect(Collectors.toList()));
+        List<User> employees = userRepository.saveAll(IntStream.range(0, 4)
+                .mapToObj(i -> user("employee" + i + "@employee.com", employeeRole))
+                .collect(Collectors.toList()));
+        List<Project> projects = projectRepository.saveAll(IntStream.range(0, 6)
+                .mapToObj(i -> project("PR00" + i, managers.get(i % managers.size())))
+                .collect(Collectors.toList()));
+        taskRepository.saveAll(IntStream.range(0, 12)
+                .mapToObj(i -> task(projects.get(i % projects.size()), employees.get(i % employees.size())))
+                .collect(Collectors.toList()));
+
+        adminToken = "Bearer " + token(admin);
+        managerToken = "Bearer " + token(managers.get(0));
+    }
+
+    @Test
+    void should_list_projects_with_their_managers_in_one_select() throws Exception {
+        mvc.perform(get("/api/v1/project").header("Authorization", managerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(6))
+                .andExpect(SqlStatements.atMost(1));
+    }
+
+    @Test
+    void should_list_tasks_with_their_projects_and_employees_in_one_select() throws Exception {
+        mvc.perform(get("/api/v1/task").header("Authorization", managerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(12))
+                .andExpect(SqlStatements.atMost(1));
+    }
+
+    @Test
+    void should_list_users_with_their_roles_in_one_select() throws Exception {
+        mvc.perform(get("/api/v1/user").header("Authorization", adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(8))
+                .andExpect(SqlStatements.atMost(1));
+    }
+
+    private User user(String userName, Role role) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setFirstName(userName.substring(0, userName.indexOf('@')));
+        user.setLastName("Budget");
+        user.setPassWord("Abc1");
+        user.setEnabled(true);
+        user.setPhone("5551234567");
+        user.setGender(Gender.MALE);
+        user.setRole(role);
+        return user;
+    }
+
+    private Project project(String projectCode, User manager) {
+        Project project = new Project();
+        project.setProjectCode(projectCode);
+        project.setProjectName("Project " + projectCode);
+        project.setProjectDetail("Seeded by the sql budget test");
+        project.setProjectStatus(Status.IN_PROGRESS);
+        project.setStartDate(LocalDate.now().minusMonths(1));
+        project.setEndDate(LocalDate.now().plusMonths(2));
+        project.setAssignedManager(manager);
+        return project;
+    }
+
+    private Task task(Project project, User employee) {
+        Task task = new Task();
+        task.setTaskSubject("Task of " + project.getProjectCode());
+        task.setTaskDetail("Seeded by the sql budget test");
+        task.setTaskStatus(Status.OPEN);
+        task.setAssignedDate(LocalDate.now().minusDays(7));
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        return task;
+    }
+
+    private String token(User user) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(keycloakProperties.getRealmUrl())
+                .subject(user.getId().toString())
+                .claim("preferred_username", user.getUserName())
+                .claim("resource_access", Map.of(keycloakProperties.getClientId(), Map.of("roles", List.of(user.getRole().getDescription()))))
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(realmKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(realmKey));
+        return jwt.serialize();
+    }
+
+    private static RSAKey generateKey() {
+        try {
+            return new RSAKeyGenerator(2048).keyID("realm-key").generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -6,6 +6,7 @@ import com.cydeo.dto.TestResponseDTO;
 import com.cydeo.dto.UserDTO;
 import com.cydeo.enums.Gender;
 import com.cydeo.enums.Status;
+import com.cydeo.support.SqlStatements;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -90,7 +91,8 @@ class ProjectControllerTest {
                 .andExpect(jsonPath("$.data[0].assignedManager.userName").exists())
                 .andExpect(jsonPath("$.data[0].assignedManager.userName").isNotEmpty())
                 .andExpect(jsonPath("$.data[0].assignedManager.userName").isString())
-                .andExpect(jsonPath("$.data[0].assignedManager.userName").value("ozzy"));
+                .andExpect(jsonPath("$.data[0].assignedManager.userName").value("ozzy"))
+                .andExpect(SqlStatements.atMost(1)); // projects come with their managers, no select per manager
 
     }
 
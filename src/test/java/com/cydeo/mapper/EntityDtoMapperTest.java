@@ -0,0 +1,90 @@
+package com.cydeo.mapper;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Gender;
+import com.cydeo.enums.Status;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// generated mapper has to give the same result ModelMapper was giving
+class EntityDtoMapperTest {
+
+    private final EntityDtoMapper entityDtoMapper = new EntityDtoMapperImpl();
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    void should_map_task_graph_like_model_mapper() {
+        Task task = getTask();
+
+        TaskDTO actual = entityDtoMapper.toTaskDto(task);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(modelMapper.map(task, TaskDTO.class));
+        assertThat(actual.getProject().getAssignedManager().getRole().getDescription()).isEqualTo("Manager");
+    }
+
+    @Test
+    void should_keep_password_but_not_confirm_password() {
+        UserDTO userDTO = new UserDTO(1L, "John", "Doe", "john@employee.com", "Abc1", "Abc1", true,
+                "1234567890", new RoleDTO(3L, "Employee"), Gender.MALE);
+
+        User user = entityDtoMapper.toUser(userDTO);
+        UserDTO mappedBack = entityDtoMapper.toUserDto(user);
+
+        assertThat(user.getPassWord()).isEqualTo("Abc1");
+        assertThat(user.getIsDeleted()).isFalse();
+        assertThat(mappedBack.getPassWord()).isEqualTo("Abc1");
+        assertThat(mappedBack.getConfirmPassWord()).isNull();
+    }
+
+    @Test
+    void should_not_touch_task_counts_of_project() {
+        Project project = getTask().getProject();
+
+        ProjectDTO projectDTO = entityDtoMapper.toProjectDto(project);
+
+        assertThat(projectDTO.getCompleteTaskCounts()).isZero();
+        assertThat(projectDTO.getUnfinishedTaskCounts()).isZero();
+        assertThat(entityDtoMapper.toProject(projectDTO)).usingRecursiveComparison()
+                .isEqualTo(modelMapper.map(projectDTO, Project.class));
+    }
+
+    private Task getTask() {
+        Role role = new Role("Manager");
+        role.setId(2L);
+
+        User manager = new User();
+        manager.setId(2L);
+        manager.setUserName("harold@manager.com");
+        manager.setPassWord("Abc1");
+        manager.setRole(role);
+        manager.setGender(Gender.MALE);
+
+        Project project = new Project();
+        project.setId(5L);
+        project.setProjectCode("PR001");
+        project.setProjectStatus(Status.OPEN);
+        project.setStartDate(LocalDate.now());
+        project.setAssignedManager(manager);
+
+        Task task = new Task();
+        task.setId(7L);
+        task.setTaskSubject("subject");
+        task.setTaskStatus(Status.IN_PROGRESS);
+        task.setAssignedDate(LocalDate.now());
+        task.setProject(project);
+        task.setAssignedEmployee(manager);
+        return task;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.cydeo.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// runs the flyway migrations on a real postgres, hibernate validates the entities against them,
+// then checks that the lookups of the repositories are answered from an index
+// needs docker, skipped without it
+@DataJpaTest(properties = {"spring.flyway.enabled=true", "spring.jpa.hibernate.ddl-auto=validate"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // tables are almost empty, without this postgres would read them sequentially even with an index
+        // a seq scan is still chosen when there is no index that can be used
+        jdbcTemplate.execute("SET enable_seqscan = off");
+    }
+
+    // where clauses as hibernate writes them, @Where adds is_deleted=false to projects and tasks
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "users    | user_name = 'harold@manager.com' AND is_deleted = false",
+            "users    | role_id = 2 AND is_deleted = false",
+            "users    | lower(user_name) LIKE 'har%' OR lower(first_name) LIKE 'har%' OR lower(last_name) LIKE 'har%'",
+            "tasks    | project_id = 1 AND task_status <> 'COMPLETE' AND is_deleted = false",
+            "tasks    | assigned_employee_id = 3 AND task_status <> 'COMPLETE' AND is_deleted = false",
+            "tasks    | assigned_employee_id IN (3, 4) AND task_status <> 'COMPLETE' AND is_deleted = false",
+            "projects | manager_id = 2 AND project_status <> 'COMPLETE' AND is_deleted = false",
+            "projects | manager_id IN (2, 5) AND project_status <> 'COMPLETE' AND is_deleted = false",
+            "keycloak_outbox | status = 'PENDING' AND next_attempt_date_time <= now()"
+    })
+    void should_use_an_index(String table, String where) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN SELECT * FROM " + table + " WHERE " + where, String.class);
+
+        assertThat(plan).as(String.join("\n", plan)).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+}
@@ -1,15 +1,14 @@
 package com.cydeo.review;
 
-import com.cydeo.dto.ProjectDTO;
 import com.cydeo.dto.RoleDTO;
-import com.cydeo.dto.TaskDTO;
 import com.cydeo.dto.UserDTO;
 import com.cydeo.entity.Role;
 import com.cydeo.entity.User;
 import com.cydeo.exception.TicketingProjectException;
 import com.cydeo.mapper.UserMapper;
 import com.cydeo.repository.UserRepository;
-import com.cydeo.service.KeycloakService;
+import com.cydeo.service.KeycloakOutboxService;
+import com.cydeo.service.PrincipalService;
 import com.cydeo.service.ProjectService;
 import com.cydeo.service.TaskService;
 import com.cydeo.service.impl.UserServiceImpl;
@@ -24,7 +23,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -42,7 +40,7 @@ we need to be able to test both of these scenarios.
 So we need to create 2 tests.
  */
 
-   //Enables Mockito integration with JUnit 5, If I do this now, I can use J. Unit in combination of mockito
+@ExtendWith(MockitoExtension.class)   //Enables Mockito integration with JUnit 5, If I do this now, I can use J. Unit in combination of mockito
 class UserServiceImplTest {
 
     @Mock
@@ -54,11 +52,14 @@ class UserServiceImplTest {
     @Mock
     private TaskService taskService;
     @Mock
-    private KeycloakService keycloakService;
+    private KeycloakOutboxService keycloakOutboxService;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalService principalService;
+
     @InjectMocks
     private UserServiceImpl userService;  // Injects the mock repository into the service
 
@@ -303,6 +304,7 @@ But that's what I'm trying to do here.
 
         // verify
         verify(passwordEncoder, times(1)).encode(anyString());
+        verify(keycloakOutboxService).enqueueCreate(user);
     }
 
     @Test
@@ -324,6 +326,23 @@ But that's what I'm trying to do here.
         // then
         //verify that passwordEncoder is executed
         verify(passwordEncoder, times(1)).encode(anyString());
+        // cached logged-in user would be stale otherwise
+        verify(principalService).evict(userDTO.getUserName());
+    }
+
+    @Test
+    void should_keep_stored_password_when_update_has_no_password(){
+        user.setPassWord("stored-hash");
+        userDTO.setPassWord(null);
+        when(userRepository.findByUserNameAndIsDeleted(anyString(), anyBoolean())).thenReturn(user);
+        when(userMapper.convertToEntity(any(UserDTO.class))).thenReturn(user);
+        when(userRepository.save(any())).thenReturn(user);
+        when(userMapper.convertToDto(any(User.class))).thenReturn(userDTO);
+
+        userService.update(userDTO);
+
+        assertEquals("stored-hash", userDTO.getPassWord());
+        verifyNoInteractions(passwordEncoder);
     }
 /*
     User Story 2: As an admin, I shouldn't be able to delete a manager user,
@@ -354,12 +373,13 @@ But that's what I'm trying to do here.
         User managerUser = getUserWithRole("Manager");
         when(userRepository.findByUserNameAndIsDeleted(anyString(), anyBoolean())).thenReturn(managerUser);
         when(userRepository.save(any())).thenReturn(managerUser);
-        when(projectService.listAllNonCompletedByAssignedManager(any())).thenReturn(new ArrayList<>());
+        when(projectService.existsNonCompletedByAssignedManager(any())).thenReturn(false);
         // when - Action
         userService.delete(managerUser.getUserName());
         // then - Assertion/Verification
         assertTrue(managerUser.getIsDeleted());
         assertNotEquals("user3", managerUser.getUserName());
+        verify(principalService).evict("user3");
     }
 
 
@@ -369,7 +389,7 @@ But that's what I'm trying to do here.
         User employeeUser = getUserWithRole("Employee");
         when(userRepository.findByUserNameAndIsDeleted(anyString(), anyBoolean())).thenReturn(employeeUser);
         when(userRepository.save(any())).thenReturn(employeeUser);
-        when(taskService.listAllNonCompletedByAssignedEmployee(any())).thenReturn(new ArrayList<>());
+        when(taskService.existsNonCompletedByAssignedEmployee(any())).thenReturn(false);
         // when - Action
         userService.delete(employeeUser.getUserName());
         // then - Assertion/Verification
@@ -397,8 +417,8 @@ But that's what I'm trying to do here.
 //            when(taskService.listAllNonCompletedByAssignedEmployee(any())).thenReturn(new ArrayList<>());
 //        }
 
-        lenient().when(projectService.listAllNonCompletedByAssignedManager(any())).thenReturn(new ArrayList<>());
-        lenient().when(taskService.listAllNonCompletedByAssignedEmployee(any())).thenReturn(new ArrayList<>());
+        lenient().when(projectService.existsNonCompletedByAssignedManager(any())).thenReturn(false);
+        lenient().when(taskService.existsNonCompletedByAssignedEmployee(any())).thenReturn(false);
 
         // when - Action
         userService.delete(testUser.getUserName());
@@ -415,7 +435,7 @@ But that's what I'm trying to do here.
         User managerUser = getUserWithRole("Manager");
 
         when(userRepository.findByUserNameAndIsDeleted(anyString(), anyBoolean())).thenReturn(managerUser);
-        when(projectService.listAllNonCompletedByAssignedManager(any())).thenReturn(List.of(new ProjectDTO(), new ProjectDTO()));
+        when(projectService.existsNonCompletedByAssignedManager(any())).thenReturn(true);
 
         Throwable actualException = assertThrows(TicketingProjectException.class, () -> userService.delete(managerUser.getUserName()));
 
@@ -429,7 +449,7 @@ But that's what I'm trying to do here.
         User employeeUser = getUserWithRole("Employee");
 
         when(userRepository.findByUserNameAndIsDeleted(anyString(), anyBoolean())).thenReturn(employeeUser);
-        when(taskService.listAllNonCompletedByAssignedEmployee(any())).thenReturn(List.of(new TaskDTO(), new TaskDTO()));
+        when(taskService.existsNonCompletedByAssignedEmployee(any())).thenReturn(true);
 
         Throwable actualException = assertThrows(TicketingProjectException.class, () -> userService.delete(employeeUser.getUserName()));
 
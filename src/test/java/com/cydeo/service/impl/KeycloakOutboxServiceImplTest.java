@@ -0,0 +1,123 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.KeycloakOutboxEvent;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.enums.OutboxStatus;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.repository.KeycloakOutboxRepository;
+import com.cydeo.service.KeycloakService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "keycloak-outbox.max-attempts=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({KeycloakOutboxServiceImpl.class, UserMapper.class, EntityDtoMapperImpl.class, SimpleMeterRegistry.class})
+class KeycloakOutboxServiceImplTest {
+
+    @Autowired
+    private KeycloakOutboxServiceImpl keycloakOutboxService;
+    @Autowired
+    private KeycloakOutboxRepository keycloakOutboxRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private KeycloakService keycloakService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Role role = entityManager.persist(new Role("Employee"));
+        user = new User();
+        user.setUserName("john@employee.com");
+        user.setPassWord("Abc1");
+        user.setEnabled(true);
+        user.setRole(role);
+        user = entityManager.persist(user);
+    }
+
+    @Test
+    void should_send_user_to_keycloak_once() {
+        keycloakOutboxService.enqueueCreate(user);
+
+        assertThat(keycloakOutboxService.dispatch()).isEqualTo(1);
+        assertThat(keycloakOutboxService.dispatch()).isZero();
+
+        verify(keycloakService, times(1)).userCreate(argThat(dto -> dto.getUserName().equals("john@employee.com")));
+        assertThat(onlyEvent().getStatus()).isEqualTo(OutboxStatus.DONE);
+        assertThat(meterRegistry.get("keycloak.outbox.send").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_retry_later_and_keep_the_order_of_changes() {
+        doThrow(new IllegalStateException("keycloak is down")).doReturn(null).when(keycloakService).userCreate(any(UserDTO.class));
+        keycloakOutboxService.enqueueCreate(user);
+        keycloakOutboxService.enqueueDelete(user, user.getUserName());
+
+        // create failed, delete of the same user must wait for it
+        assertThat(keycloakOutboxService.dispatch()).isZero();
+        verify(keycloakService, never()).delete(any());
+
+        KeycloakOutboxEvent create = keycloakOutboxRepository.findAll().get(0);
+        assertThat(create.getAttempts()).isEqualTo(1);
+        assertThat(create.getNextAttemptDateTime()).isAfter(LocalDateTime.now());
+        assertThat(create.getLastError()).contains("keycloak is down");
+
+        // not due yet
+        assertThat(keycloakOutboxService.dispatch()).isZero();
+
+        create.setNextAttemptDateTime(LocalDateTime.now().minusSeconds(1));
+        keycloakOutboxRepository.save(create);
+
+        assertThat(keycloakOutboxService.dispatch()).isEqualTo(2);
+        InOrder inOrder = inOrder(keycloakService);
+        inOrder.verify(keycloakService, times(2)).userCreate(any(UserDTO.class));
+        inOrder.verify(keycloakService).delete("john@employee.com");
+    }
+
+    @Test
+    void should_give_up_after_max_attempts() {
+        doThrow(new IllegalStateException("keycloak is down")).when(keycloakService).delete(any());
+        keycloakOutboxService.enqueueDelete(user, user.getUserName());
+
+        keycloakOutboxService.dispatch();
+        KeycloakOutboxEvent event = onlyEvent();
+        event.setNextAttemptDateTime(LocalDateTime.now().minusSeconds(1));
+        keycloakOutboxRepository.save(event);
+        keycloakOutboxService.dispatch();
+
+        assertThat(onlyEvent().getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(onlyEvent().getAttempts()).isEqualTo(2);
+    }
+
+    private KeycloakOutboxEvent onlyEvent() {
+        List<KeycloakOutboxEvent> events = keycloakOutboxRepository.findAll();
+        assertThat(events).hasSize(1);
+        return events.get(0);
+    }
+
+}
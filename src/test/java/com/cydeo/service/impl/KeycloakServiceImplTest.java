@@ -0,0 +1,137 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.config.KeycloakAdminConfig;
+import com.cydeo.config.KeycloakProperties;
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.support.KeycloakAdminStub;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+
+import javax.ws.rs.ProcessingException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeycloakServiceImplTest {
+
+    private final InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+            .build();
+
+    private KeycloakAdminStub stub;
+    private Keycloak keycloak;
+
+    @AfterEach
+    void tearDown() {
+        keycloak.close();
+        if (stub != null) {
+            stub.close();
+        }
+        tracerProvider.close();
+    }
+
+    @Test
+    void should_reuse_master_token_across_calls() throws Exception {
+        KeycloakServiceImpl keycloakService = keycloakService(300);
+
+        for (int i = 0; i < 5; i++) {
+            keycloakService.userCreate(user());
+            keycloakService.delete("user" + i + "@employee.com");
+        }
+
+        assertThat(stub.getTokenRequests()).isEqualTo(1);
+        assertThat(stub.getAdminRequests()).isEqualTo(5 * 6);
+    }
+
+    @Test
+    void should_refresh_token_before_it_expires() throws Exception {
+        // token lives shorter than the minimum validity, so every call needs a fresh one
+        KeycloakServiceImpl keycloakService = keycloakService(10);
+
+        keycloakService.delete("user1@employee.com");
+        keycloakService.delete("user2@employee.com");
+
+        assertThat(stub.getTokenRequests()).isEqualTo(stub.getAdminRequests());
+    }
+
+    @Test
+    void should_trace_every_admin_call() throws Exception {
+        KeycloakServiceImpl keycloakService = keycloakService(300);
+
+        keycloakService.userCreate(user());
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        // the master token and one span for each admin call
+        assertThat(spans).hasSize(1 + stub.getAdminRequests());
+        assertThat(spans).allMatch(span -> span.getKind() == SpanKind.CLIENT);
+        assertThat(spans.get(0).getName()).isEqualTo("keycloak POST /realms/master/protocol/openid-connect/token");
+        assertThat(spans).extracting(SpanData::getName).noneMatch(name -> name.matches(".*[0-9a-f]{8}-[0-9a-f]{4}-.*"));
+    }
+
+    @Test
+    void should_end_the_span_of_a_call_without_response() throws Exception {
+        // nothing listens on the port, the token call fails before any response
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        KeycloakProperties properties = properties("http://localhost:" + port);
+        keycloak = new KeycloakAdminConfig().keycloakAdminClient(properties, tracerProvider.get("test"));
+        KeycloakServiceImpl keycloakService = new KeycloakServiceImpl(properties, keycloak);
+
+        assertThatThrownBy(() -> keycloakService.delete("user1@employee.com")).isInstanceOf(ProcessingException.class);
+
+        SpanData span = spanExporter.getFinishedSpanItems().get(0);
+        assertThat(span.getName()).isEqualTo("keycloak POST /realms/master/protocol/openid-connect/token");
+        assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+        assertThat(span.getEvents()).extracting(EventData::getName).containsExactly("exception");
+    }
+
+    private KeycloakServiceImpl keycloakService(int tokenLifespanSeconds) throws Exception {
+        stub = new KeycloakAdminStub(tokenLifespanSeconds);
+        KeycloakProperties properties = properties(stub.getUrl());
+        keycloak = new KeycloakAdminConfig().keycloakAdminClient(properties, tracerProvider.get("test"));
+        return new KeycloakServiceImpl(properties, keycloak);
+    }
+
+    static KeycloakProperties properties(String url) {
+        KeycloakProperties properties = new KeycloakProperties();
+        properties.setAuthServerUrl(url);
+        properties.setRealm("cydeo-dev");
+        properties.setClientId("ticketing-app");
+        properties.setMasterRealm("master");
+        properties.setMasterUser("admin");
+        properties.setMasterUserPswd("admin");
+        properties.setMasterClient("master-client");
+        properties.setAdminConnectionPoolSize(4);
+        properties.setAdminConnectTimeout(Duration.ofSeconds(2));
+        properties.setAdminReadTimeout(Duration.ofSeconds(2));
+        properties.setAdminConnectionCheckoutTimeout(Duration.ofSeconds(2));
+        properties.setAdminTokenMinValidity(Duration.ofSeconds(30));
+        return properties;
+    }
+
+    private UserDTO user() {
+        UserDTO user = new UserDTO();
+        user.setUserName("user@employee.com");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setPassWord("Abc1");
+        user.setRole(new RoleDTO(3L, "Employee"));
+        return user;
+    }
+
+}
@@ -0,0 +1,272 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.mapper.CursorUtil;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.service.PrincipalService;
+import com.cydeo.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.KeycloakPrincipal;
+import org.keycloak.adapters.RefreshableKeycloakSecurityContext;
+import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
+import org.keycloak.representations.AccessToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JacksonAutoConfiguration.class, ProjectServiceImpl.class, TaskServiceImpl.class, ProjectTaskStatsServiceImpl.class, PrincipalServiceImpl.class, ProjectMapper.class, TaskMapper.class, UserMapper.class, EntityDtoMapperImpl.class, CursorUtil.class})
+class ProjectServiceImplTest {
+
+    @Autowired
+    private ProjectServiceImpl projectService;
+    @Autowired
+    private ProjectTaskStatsServiceImpl projectTaskStatsService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Autowired
+    private PrincipalService principalService;
+
+    @MockBean
+    private UserService userService;
+
+    private User manager;
+    private User employee;
+
+    @BeforeEach
+    void setUp() {
+        Role managerRole = entityManager.persist(new Role("Manager"));
+        Role employeeRole = entityManager.persist(new Role("Employee"));
+        manager = persistUser("harold@manager.com", managerRole);
+        employee = persistUser("john@employee.com", employeeRole);
+
+        // ids change from test to test, the cached manager of the previous test must not be used
+        principalService.evict(manager.getUserName());
+
+        loginAs(manager.getUserName());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void should_fill_task_counts_of_each_project() {
+        Project project = persistProject("PR001");
+        persistTask(project, Status.COMPLETE);
+        persistTask(project, Status.OPEN);
+        persistTask(project, Status.IN_PROGRESS);
+        Project emptyProject = persistProject("PR002");
+        flushAndRebuildCounters();
+
+        List<ProjectDTO> projects = projectService.listAllProjectDetails();
+
+        ProjectDTO withTasks = find(projects, project.getProjectCode());
+        assertThat(withTasks.getCompleteTaskCounts()).isEqualTo(1);
+        assertThat(withTasks.getUnfinishedTaskCounts()).isEqualTo(2);
+
+        ProjectDTO withoutTasks = find(projects, emptyProject.getProjectCode());
+        assertThat(withoutTasks.getCompleteTaskCounts()).isZero();
+        assertThat(withoutTasks.getUnfinishedTaskCounts()).isZero();
+    }
+
+    @Test
+    void should_count_tasks_that_existed_before_the_counters_once_the_application_is_ready() {
+        // tasks of a database migrated to V5, project_task_stats is still empty
+        Project project = persistProject("PR001");
+        persistTask(project, Status.COMPLETE);
+        persistTask(project, Status.OPEN);
+        entityManager.flush();
+
+        applicationContext.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], applicationContext, Duration.ZERO));
+        entityManager.flush();
+        entityManager.clear();
+
+        ProjectDTO dashboard = find(projectService.listAllProjectDetails(), project.getProjectCode());
+        assertThat(dashboard.getCompleteTaskCounts()).isEqualTo(1);
+        assertThat(dashboard.getUnfinishedTaskCounts()).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_count_deleted_tasks() {
+        Project project = persistProject("PR001");
+        persistTask(project, Status.OPEN).setIsDeleted(true);
+        persistTask(project, Status.OPEN);
+        flushAndRebuildCounters();
+
+        List<ProjectDTO> projects = projectService.listAllProjectDetails();
+
+        assertThat(projects.get(0).getUnfinishedTaskCounts()).isEqualTo(1);
+    }
+
+    @Test
+    void should_complete_project_together_with_its_tasks() {
+        Project project = persistProject("PR001");
+        persistTask(project, Status.OPEN);
+        flushAndRebuildCounters();
+
+        projectService.complete(project.getProjectCode());
+
+        // the task update clears the persistence context, the project change must be written before it
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(entityManager.find(Project.class, project.getId()).getProjectStatus()).isEqualTo(Status.COMPLETE);
+        assertThat(entityManager.getEntityManager().createQuery("SELECT t.taskStatus FROM Task t", Status.class).getResultList())
+                .containsOnly(Status.COMPLETE);
+    }
+
+    @Test
+    void should_delete_project_together_with_its_tasks() {
+        Project project = persistProject("PR001");
+        persistTask(project, Status.OPEN);
+        flushAndRebuildCounters();
+
+        projectService.delete(project.getProjectCode());
+
+        entityManager.flush();
+        entityManager.clear();
+        // @Where hides deleted rows from hibernate queries, so the tables are read directly
+        assertThat(entityManager.getEntityManager().createNativeQuery("SELECT project_code FROM projects WHERE is_deleted = true").getResultList())
+                .containsExactly("PR001-" + project.getId());
+        assertThat(entityManager.getEntityManager().createNativeQuery("SELECT is_deleted FROM tasks").getResultList())
+                .containsOnly(true);
+    }
+
+    @Test
+    void should_run_same_number_of_statements_regardless_of_project_count() {
+        long statementsForFewProjects = statementsForProjects(3);
+        long statementsForManyProjects = statementsForProjects(30);
+
+        assertThat(statementsForManyProjects).isEqualTo(statementsForFewProjects);
+    }
+
+    @Test
+    void should_look_up_logged_in_user_only_once() {
+        persistProject("PR001");
+        flushAndRebuildCounters();
+
+        long statementsWithLookup = statementsForListing();
+        long statementsFromCache = statementsForListing();
+
+        assertThat(statementsFromCache).isEqualTo(statementsWithLookup - 1);
+    }
+
+    private long statementsForListing() {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        projectService.listAllProjectDetails();
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsForProjects(int projectCount) {
+        for (int i = 0; i < projectCount; i++) {
+            Project project = persistProject("PR-" + projectCount + "-" + i);
+            persistTask(project, Status.COMPLETE);
+            persistTask(project, Status.OPEN);
+        }
+        flushAndRebuildCounters();
+        // logged-in user comes from the principal cache after the first call
+        projectService.listAllProjectDetails();
+
+        long statements = statementsForListing();
+        entityManager.clear();
+        return statements;
+    }
+
+    // tasks are persisted directly, not through the task service, so the counters are built by the repair job
+    private void flushAndRebuildCounters() {
+        entityManager.flush();
+        projectTaskStatsService.rebuild();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private ProjectDTO find(List<ProjectDTO> projects, String projectCode) {
+        return projects.stream()
+                .filter(project -> project.getProjectCode().equals(projectCode))
+                .findFirst().orElseThrow();
+    }
+
+    private User persistUser(String userName, Role role) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassWord("Abc1");
+        user.setEnabled(true);
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private Project persistProject(String projectCode) {
+        Project project = new Project();
+        project.setProjectCode(projectCode);
+        project.setProjectName(projectCode);
+        project.setProjectStatus(Status.OPEN);
+        project.setStartDate(LocalDate.now());
+        project.setEndDate(LocalDate.now().plusDays(5));
+        project.setAssignedManager(manager);
+        return entityManager.persist(project);
+    }
+
+    private Task persistTask(Project project, Status status) {
+        Task task = new Task();
+        task.setTaskSubject("subject");
+        task.setTaskStatus(status);
+        task.setAssignedDate(LocalDate.now());
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        return entityManager.persist(task);
+    }
+
+    private void loginAs(String userName) {
+        AccessToken token = new AccessToken();
+        token.setPreferredUsername(userName);
+        RefreshableKeycloakSecurityContext context =
+                new RefreshableKeycloakSecurityContext(null, null, null, token, null, null, null);
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(userName, null);
+        authentication.setDetails(new SimpleKeycloakAccount(new KeycloakPrincipal<>(userName, context), Set.of(), context));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+}
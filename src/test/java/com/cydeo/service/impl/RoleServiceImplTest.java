@@ -0,0 +1,70 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.RoleDTO;
+import com.cydeo.entity.Role;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.RoleMapper;
+import com.cydeo.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleServiceImplTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    private RoleServiceImpl roleService;
+
+    @BeforeEach
+    void setUp() {
+        roleService = new RoleServiceImpl(roleRepository, new RoleMapper(new EntityDtoMapperImpl()));
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "Admin"), role(2L, "Manager")));
+    }
+
+    @Test
+    void lookups_are_served_from_memory_after_preload() {
+        roleService.preload();
+
+        assertThat(roleService.listAllRoles()).extracting(RoleDTO::getDescription).containsExactly("Admin", "Manager");
+        assertThat(roleService.findById(2L).getDescription()).isEqualTo("Manager");
+        assertThat(roleService.findByDescription("mAnAgEr").getId()).isEqualTo(2L);
+        assertThat(roleService.findByDescription("Employee")).isNull();
+        assertThatThrownBy(() -> roleService.findById(3L)).isInstanceOf(NoSuchElementException.class);
+
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void cached_roles_can_not_be_changed_by_callers() {
+        roleService.findById(1L).setDescription("Changed");
+
+        assertThat(roleService.findById(1L).getDescription()).isEqualTo("Admin");
+    }
+
+    @Test
+    void refresh_reloads_the_roles() {
+        roleService.preload();
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "Admin"), role(2L, "Manager"), role(3L, "Employee")));
+
+        roleService.refresh();
+
+        assertThat(roleService.findByDescription("employee").getId()).isEqualTo(3L);
+    }
+
+    private Role role(Long id, String description) {
+        Role role = new Role(description);
+        role.setId(id);
+        return role;
+    }
+}
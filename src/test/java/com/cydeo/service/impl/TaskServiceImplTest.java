@@ -0,0 +1,320 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.CursorPageDTO;
+import com.cydeo.dto.ProjectDTO;
+import com.cydeo.dto.TaskDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.ProjectTaskStats;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.Status;
+import com.cydeo.exception.InvalidCursorException;
+import com.cydeo.mapper.CursorUtil;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.repository.ProjectTaskStatsRepository;
+import com.cydeo.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.KeycloakPrincipal;
+import org.keycloak.adapters.RefreshableKeycloakSecurityContext;
+import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
+import org.keycloak.representations.AccessToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JacksonAutoConfiguration.class, TaskServiceImpl.class, ProjectTaskStatsServiceImpl.class, PrincipalServiceImpl.class, TaskMapper.class, UserMapper.class, EntityDtoMapperImpl.class, CursorUtil.class})
+class TaskServiceImplTest {
+
+    @Autowired
+    private TaskServiceImpl taskService;
+    @Autowired
+    private ProjectTaskStatsServiceImpl projectTaskStatsService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private UserService userService;
+    @Autowired
+    private ProjectTaskStatsRepository projectTaskStatsRepository;
+
+    private User employee;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        Role employeeRole = entityManager.persist(new Role("Employee"));
+        employee = new User();
+        employee.setUserName("john@employee.com");
+        employee.setPassWord("Abc1");
+        employee.setRole(employeeRole);
+        entityManager.persist(employee);
+
+        project = new Project();
+        project.setProjectCode("PR001");
+        project.setProjectStatus(Status.OPEN);
+        project.setAssignedManager(employee);
+        entityManager.persist(project);
+        entityManager.flush();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void should_count_saved_task_as_unfinished() {
+        taskService.save(newTaskDTO());
+
+        assertCounters(0, 1);
+    }
+
+    @Test
+    void should_keep_counters_another_transaction_inserted_first() {
+        // both transactions found no counters, the one inserting second gets 0 and adds its change with an update
+        assertThat(projectTaskStatsRepository.insertIfAbsent(project.getId(), 0, 1)).isEqualTo(1);
+        assertThat(projectTaskStatsRepository.insertIfAbsent(project.getId(), 0, 1)).isZero();
+        projectTaskStatsRepository.increment(project.getId(), 0, 1);
+
+        assertCounters(0, 2);
+    }
+
+    @Test
+    void should_move_task_between_counters_on_status_change() {
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+        TaskDTO task = taskService.listAllTasks().get(0);
+
+        task.setTaskStatus(Status.COMPLETE);
+        taskService.update(task);
+
+        assertCounters(1, 1);
+    }
+
+    @Test
+    void should_not_count_deleted_task() {
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+
+        taskService.delete(taskService.listAllTasks().get(0).getId());
+
+        assertCounters(0, 1);
+    }
+
+    @Test
+    void should_complete_every_task_of_project() {
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+
+        int completedTasks = taskService.completeByProject(project.getId());
+
+        assertThat(completedTasks).isEqualTo(2);
+        assertThat(taskService.listAllTasks()).allMatch(task -> task.getTaskStatus() == Status.COMPLETE);
+        assertCounters(2, 0);
+    }
+
+    @Test
+    void should_soft_delete_every_task_of_project() {
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+        taskService.delete(taskService.listAllTasks().get(0).getId());
+        entityManager.flush();
+        LocalDateTime beforeDelete = LocalDateTime.now();
+
+        int deletedTasks = taskService.deleteByProject(project.getId());
+
+        assertThat(deletedTasks).isEqualTo(1);
+        assertThat(taskService.listAllTasks()).isEmpty();
+        assertThat(entityManager.find(ProjectTaskStats.class, project.getId())).isNull();
+        // @Where hides deleted tasks from JPQL, so read the row directly
+        Timestamp lastUpdate = (Timestamp) entityManager.getEntityManager()
+                .createNativeQuery("SELECT MAX(last_update_date_time) FROM tasks WHERE project_id = ?1 AND is_deleted = true")
+                .setParameter(1, project.getId())
+                .getSingleResult();
+        assertThat(lastUpdate.toLocalDateTime()).isAfterOrEqualTo(beforeDelete);
+    }
+
+    @Test
+    void should_page_tasks_with_cursor() {
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+
+        CursorPageDTO<TaskDTO> firstPage = taskService.listAllTasks(null, 2);
+        CursorPageDTO<TaskDTO> secondPage = taskService.listAllTasks(firstPage.getNextCursor(), 2);
+
+        assertThat(firstPage.getData()).hasSize(2);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+        assertThat(secondPage.getData()).hasSize(1);
+        assertThat(secondPage.getNextCursor()).isNull();
+        assertThat(secondPage.getData().get(0).getId()).isGreaterThan(firstPage.getData().get(1).getId());
+    }
+
+    @Test
+    void should_reject_broken_cursor() {
+        assertThatThrownBy(() -> taskService.listAllTasks("not-a-cursor!", 2))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void should_export_one_json_line_per_task() throws IOException {
+        taskService.save(newTaskDTO());
+        taskService.save(newTaskDTO());
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        taskService.exportAllTasks(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], TaskDTO.class).getProject().getId()).isEqualTo(project.getId());
+    }
+
+    @Test
+    void should_list_tasks_with_one_statement_regardless_of_row_count() {
+        for (int i = 0; i < 5; i++) {
+            Project otherProject = new Project();
+            otherProject.setProjectCode("PR-OTHER-" + i);
+            otherProject.setProjectStatus(Status.OPEN);
+            otherProject.setAssignedManager(newEmployee("manager" + i + "@manager.com"));
+            entityManager.persist(otherProject);
+
+            Task task = new Task();
+            task.setTaskStatus(Status.OPEN);
+            task.setProject(otherProject);
+            task.setAssignedEmployee(i % 2 == 0 ? employee : newEmployee("employee" + i + "@employee.com"));
+            entityManager.persist(task);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<TaskDTO> tasks = taskService.listAllTasks();
+        assertThat(tasks).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        entityManager.clear();
+        statistics.clear();
+        UserDTO employeeDTO = new UserDTO();
+        employeeDTO.setId(employee.getId());
+        List<TaskDTO> employeeTasks = taskService.listAllNonCompletedByAssignedEmployee(employeeDTO);
+        assertThat(employeeTasks).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_list_tasks_by_status_of_the_logged_in_employee_only() {
+        User mike = newEmployee("mike@employee.com");
+        for (User assignee : List.of(employee, mike)) {
+            Task task = new Task();
+            task.setTaskStatus(Status.IN_PROGRESS);
+            task.setProject(project);
+            task.setAssignedEmployee(assignee);
+            entityManager.persist(task);
+        }
+        entityManager.flush();
+        loginAs("mike@employee.com");
+
+        List<TaskDTO> tasks = taskService.listAllTasksByStatus(Status.IN_PROGRESS);
+
+        assertThat(tasks).extracting(task -> task.getAssignedEmployee().getId()).containsExactly(mike.getId());
+    }
+
+    @Test
+    void should_repair_drifted_counters() {
+        Task task = new Task();
+        task.setTaskStatus(Status.OPEN);
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        entityManager.persist(task);
+        entityManager.persist(new ProjectTaskStats(project.getId(), 5, 5));
+        entityManager.flush();
+
+        int repaired = projectTaskStatsService.rebuild();
+
+        assertThat(repaired).isEqualTo(1);
+        assertCounters(0, 1);
+        assertThat(projectTaskStatsService.rebuild()).isZero();
+    }
+
+    private void loginAs(String userName) {
+        AccessToken token = new AccessToken();
+        token.setPreferredUsername(userName);
+        RefreshableKeycloakSecurityContext context =
+                new RefreshableKeycloakSecurityContext(null, null, null, token, null, null, null);
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(userName, null);
+        authentication.setDetails(new SimpleKeycloakAccount(new KeycloakPrincipal<>(userName, context), Set.of(), context));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private User newEmployee(String userName) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassWord("Abc1");
+        user.setRole(employee.getRole());
+        return entityManager.persist(user);
+    }
+
+    private TaskDTO newTaskDTO() {
+        ProjectDTO projectDTO = new ProjectDTO();
+        projectDTO.setId(project.getId());
+        UserDTO employeeDTO = new UserDTO();
+        employeeDTO.setId(employee.getId());
+
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setProject(projectDTO);
+        taskDTO.setAssignedEmployee(employeeDTO);
+        taskDTO.setTaskSubject("subject");
+        taskDTO.setAssignedDate(LocalDate.now());
+        return taskDTO;
+    }
+
+    private void assertCounters(long complete, long unfinished) {
+        entityManager.flush();
+        entityManager.clear();
+        ProjectTaskStats stats = entityManager.find(ProjectTaskStats.class, project.getId());
+        assertThat(stats.getCompleteTaskCounts()).isEqualTo(complete);
+        assertThat(stats.getUnfinishedTaskCounts()).isEqualTo(unfinished);
+    }
+
+}
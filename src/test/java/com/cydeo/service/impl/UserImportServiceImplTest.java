@@ -0,0 +1,230 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.config.BoundedPasswordEncoder;
+import com.cydeo.config.PasswordHashingConfig;
+import com.cydeo.dto.UserImportReportDTO;
+import com.cydeo.dto.UserImportResultDTO;
+import com.cydeo.entity.KeycloakOutboxEvent;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.User;
+import com.cydeo.enums.OutboxOperation;
+import com.cydeo.exception.InvalidImportFileException;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.RoleMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.repository.KeycloakOutboxRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.KeycloakOutboxService;
+import com.cydeo.service.KeycloakService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {"user-import.batch-size=2", "password-hashing.bcrypt-strength=4"})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JacksonAutoConfiguration.class, LocalValidatorFactoryBean.class, UserImportServiceImpl.class, KeycloakOutboxServiceImpl.class,
+        RoleServiceImpl.class, RoleMapper.class, UserMapper.class, EntityDtoMapperImpl.class, SimpleMeterRegistry.class,
+        PasswordHashingConfig.class})
+class UserImportServiceImplTest {
+
+    @Autowired
+    private UserImportServiceImpl userImportService;
+    @Autowired
+    private RoleServiceImpl roleService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private KeycloakOutboxRepository keycloakOutboxRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private KeycloakOutboxService keycloakOutboxService;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @MockBean
+    private KeycloakService keycloakService;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(new Role("Manager"));
+        Role employee = entityManager.persist(new Role("Employee"));
+        roleService.refresh();
+
+        User existing = new User();
+        existing.setUserName("taken@employee.com");
+        existing.setPassWord("encoded");
+        existing.setRole(employee);
+        entityManager.persist(existing);
+    }
+
+    @Test
+    void should_import_valid_rows_and_report_the_others() throws Exception {
+        String csv = "firstName,lastName,userName,passWord,phone,role,gender\n" +
+                "John,Doe,john@employee.com,Abc1,1234567890,Employee,Male\n" +
+                "\"Mary, Ann\",Smith,mary@manager.com,Abc1,1234567890,manager,FEMALE\n" +
+                "Bad,Email,not-an-email,Abc1,1234567890,Employee,Male\n" +
+                "John,Again,john@employee.com,Abc1,1234567890,Employee,Male\n" +
+                "Taken,User,taken@employee.com,Abc1,1234567890,Employee,Male\n" +
+                "No,Role,norole@employee.com,Abc1,1234567890,Director,Male\n" +
+                "Short,Row\n" +
+                "Ann,Lee,ann@employee.com,Abc1,1234567890,Employee,Female\n";
+
+        UserImportReportDTO report = userImportService.importCsv(stream(csv));
+
+        assertThat(report.getTotal()).isEqualTo(8);
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getResults()).extracting(UserImportResultDTO::getRow).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(report.getResults()).extracting(UserImportResultDTO::isImported)
+                .containsExactly(true, true, false, false, false, false, false, true);
+        assertThat(report.getResults().get(2).getMessage()).startsWith("userName:");
+        assertThat(report.getResults().get(3).getMessage()).isEqualTo("User name is more than once in the file.");
+        assertThat(report.getResults().get(4).getMessage()).isEqualTo("User name already exists.");
+        assertThat(report.getResults().get(5).getMessage()).isEqualTo("Unknown role: Director");
+
+        entityManager.clear();
+        User mary = userRepository.findByUserNameAndIsDeleted("mary@manager.com", false);
+        assertThat(mary.getFirstName()).isEqualTo("Mary, Ann");
+        assertThat(passwordEncoder.matches("Abc1", mary.getPassWord())).isTrue();
+        assertThat(mary.getRole().getDescription()).isEqualTo("Manager");
+
+        // every imported user goes to keycloak through the outbox
+        List<KeycloakOutboxEvent> events = keycloakOutboxRepository.findAll();
+        assertThat(events).extracting(KeycloakOutboxEvent::getUserName)
+                .containsExactlyInAnyOrder("john@employee.com", "mary@manager.com", "ann@employee.com");
+        assertThat(events).allMatch(event -> event.getOperation() == OutboxOperation.CREATE_USER && event.getUserId() != null);
+    }
+
+    @Test
+    void should_hash_passwords_on_the_hashing_executor() throws Exception {
+        String json = "[" + List.of(1, 2, 3, 4).stream()
+                .map(i -> "{\"firstName\":\"User\",\"lastName\":\"Number\",\"userName\":\"user" + i + "@employee.com\"," +
+                        "\"passWord\":\"Abc1\",\"phone\":\"1234567890\",\"role\":{\"description\":\"Employee\"},\"gender\":\"MALE\"}")
+                .collect(Collectors.joining(",")) + "]";
+
+        // the timer is recorded by the tasks of the hashing executor
+        Timer encodeTimer = meterRegistry.timer("password.hashing", "operation", "encode");
+        long encodedBefore = encodeTimer.count();
+
+        UserImportReportDTO report = userImportService.importJson(stream(json));
+
+        assertThat(report.getImported()).isEqualTo(4);
+        assertThat(encodeTimer.count() - encodedBefore).isEqualTo(4);
+    }
+
+    @Test
+    void should_leave_hashing_places_to_other_callers_during_an_import() throws Exception {
+        // one hashing thread, 4 places and a short wait, an import holding all 4 gets the other caller rejected
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(10), executor, 4, Duration.ofMillis(50), new SimpleMeterRegistry());
+        UserImportServiceImpl importService = new UserImportServiceImpl(userRepository, roleService, keycloakOutboxService, encoder, validator,
+                objectMapper, jdbcTemplate, namedParameterJdbcTemplate, transactionManager, 10, 16);
+        String json = "[" + IntStream.rangeClosed(1, 10)
+                .mapToObj(i -> "{\"firstName\":\"User\",\"lastName\":\"Number\",\"userName\":\"user" + i + "@employee.com\"," +
+                        "\"passWord\":\"Abc1\",\"phone\":\"1234567890\",\"role\":{\"description\":\"Employee\"},\"gender\":\"MALE\"}")
+                .collect(Collectors.joining(",")) + "]";
+
+        // logins and user saves hash while the import runs, a rejected hash fails the future
+        AtomicBoolean importing = new AtomicBoolean(true);
+        CompletableFuture<Integer> otherCaller = CompletableFuture.supplyAsync(() -> {
+            int hashed = 0;
+            while (importing.get()) {
+                encoder.encode("Abc1");
+                hashed++;
+            }
+            return hashed;
+        });
+        UserImportReportDTO report;
+        try {
+            report = importService.importJson(stream(json));
+        } finally {
+            importing.set(false);
+        }
+
+        assertThat(report.getImported()).isEqualTo(10);
+        assertThat(otherCaller.get()).isPositive();
+        executor.shutdown();
+    }
+
+    @Test
+    void should_report_a_broken_json_user_and_go_on() throws Exception {
+        String json = "[{\"userName\":\"a@employee.com\",\"gender\":\"UNKNOWN\"}," +
+                "{\"firstName\":\"Ann\",\"lastName\":\"Lee\",\"userName\":\"ann@employee.com\",\"passWord\":\"Abc1\"," +
+                "\"phone\":\"1234567890\",\"role\":{\"description\":\"Employee\"},\"gender\":\"FEMALE\"}]";
+
+        UserImportReportDTO report = userImportService.importJson(stream(json));
+
+        assertThat(report.getResults()).extracting(UserImportResultDTO::isImported).containsExactly(false, true);
+    }
+
+    @Test
+    void should_stop_at_broken_json_and_report_the_rows_before() throws Exception {
+        String json = "[{\"firstName\":\"Ann\",\"lastName\":\"Lee\",\"userName\":\"ann@employee.com\",\"passWord\":\"Abc1\"," +
+                "\"phone\":\"1234567890\",\"role\":{\"description\":\"Employee\"},\"gender\":\"FEMALE\"}," +
+                "{\"firstName\":\"Jo";
+
+        UserImportReportDTO report = userImportService.importJson(stream(json));
+
+        assertThat(report.getResults()).extracting(UserImportResultDTO::isImported).containsExactly(true, false);
+        assertThat(report.getResults().get(1).getMessage()).startsWith("File is broken here, the rest is not imported:");
+        assertThat(userRepository.findByUserNameAndIsDeleted("ann@employee.com", false)).isNotNull();
+    }
+
+    @Test
+    void should_reject_csv_without_header() {
+        assertThatThrownBy(() -> userImportService.importCsv(stream("John,Doe\n")))
+                .isInstanceOf(InvalidImportFileException.class);
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
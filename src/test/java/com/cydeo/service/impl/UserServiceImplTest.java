@@ -0,0 +1,205 @@
+package com.cydeo.service.impl;
+
+import com.cydeo.dto.CursorPageDTO;
+import com.cydeo.dto.UserDTO;
+import com.cydeo.dto.UserDeactivationResultDTO;
+import com.cydeo.entity.KeycloakOutboxEvent;
+import com.cydeo.entity.Project;
+import com.cydeo.entity.Role;
+import com.cydeo.entity.Task;
+import com.cydeo.entity.User;
+import com.cydeo.enums.OutboxOperation;
+import com.cydeo.enums.Status;
+import com.cydeo.exception.TicketingProjectException;
+import com.cydeo.mapper.CursorUtil;
+import com.cydeo.mapper.EntityDtoMapperImpl;
+import com.cydeo.mapper.ProjectMapper;
+import com.cydeo.mapper.RoleMapper;
+import com.cydeo.mapper.TaskMapper;
+import com.cydeo.mapper.UserMapper;
+import com.cydeo.repository.KeycloakOutboxRepository;
+import com.cydeo.repository.UserRepository;
+import com.cydeo.service.KeycloakService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JacksonAutoConfiguration.class, UserServiceImpl.class, ProjectServiceImpl.class, TaskServiceImpl.class, ProjectTaskStatsServiceImpl.class,
+        PrincipalServiceImpl.class, RoleServiceImpl.class, KeycloakOutboxServiceImpl.class, RoleMapper.class, ProjectMapper.class, TaskMapper.class,
+        UserMapper.class, EntityDtoMapperImpl.class, CursorUtil.class, SimpleMeterRegistry.class})
+class UserServiceImplTest {
+
+    @Autowired
+    private UserServiceImpl userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private KeycloakOutboxRepository keycloakOutboxRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private KeycloakService keycloakService;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    private User busyManager;
+    private User freeManager;
+    private User busyEmployee;
+    private User freeEmployee;
+
+    @BeforeEach
+    void setUp() {
+        Role managerRole = entityManager.persist(new Role("Manager"));
+        Role employeeRole = entityManager.persist(new Role("Employee"));
+
+        busyManager = user("busy@manager.com", managerRole);
+        freeManager = user("free@manager.com", managerRole);
+        busyEmployee = user("busy@employee.com", employeeRole);
+        freeEmployee = user("free@employee.com", employeeRole);
+
+        Project openProject = project("PR001", Status.IN_PROGRESS, busyManager);
+        project("PR002", Status.COMPLETE, freeManager);
+
+        task(Status.OPEN, openProject, busyEmployee);
+        task(Status.COMPLETE, openProject, freeEmployee);
+        entityManager.flush();
+    }
+
+    @Test
+    void should_deactivate_only_users_without_open_work() {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<UserDeactivationResultDTO> results = userService.deactivateAll(List.of("busy@manager.com", "free@manager.com",
+                "busy@employee.com", "free@employee.com", "missing@employee.com", "free@manager.com"));
+
+        // users, open projects of the managers, open tasks of the employees and the update
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(results).extracting(UserDeactivationResultDTO::getUserName)
+                .containsExactly("busy@manager.com", "free@manager.com", "busy@employee.com", "free@employee.com", "missing@employee.com");
+        assertThat(results).extracting(UserDeactivationResultDTO::isDeactivated).containsExactly(false, true, false, true, false);
+        assertThat(results.get(4).getMessage()).isEqualTo("User not found.");
+
+        assertThat(userRepository.findByUserNameAndIsDeleted("free@manager.com", false)).isNull();
+        User deactivated = userRepository.findById(freeManager.getId()).orElseThrow();
+        assertThat(deactivated.getIsDeleted()).isTrue();
+        assertThat(deactivated.getUserName()).isEqualTo("free@manager.com-" + freeManager.getId());
+        assertThat(userRepository.findByUserNameAndIsDeleted("busy@manager.com", false)).isNotNull();
+
+        List<KeycloakOutboxEvent> events = keycloakOutboxRepository.findAll();
+        assertThat(events).extracting(KeycloakOutboxEvent::getUserName).containsExactlyInAnyOrder("free@manager.com", "free@employee.com");
+        assertThat(events).allMatch(event -> event.getOperation() == OutboxOperation.DELETE_USER);
+    }
+
+    @Test
+    void should_page_through_users_without_first_name() {
+        name(busyManager, "Harold", "Finch");
+        name(freeEmployee, "Paul", "Smith");
+        entityManager.flush();
+
+        List<String> userNames = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<UserDTO> page = userService.listAllUsers(cursor, 1);
+            page.getData().forEach(user -> userNames.add(user.getUserName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // first name descending, the ones without a first name at the end by id descending
+        assertThat(userNames).containsExactly("free@employee.com", "busy@manager.com", "busy@employee.com", "free@manager.com");
+    }
+
+    @Test
+    void should_search_users_by_prefix_page_by_page() {
+        name(busyManager, "Harold", "Finch");
+        name(freeManager, "Harriet", "Jones");
+        name(busyEmployee, "John", "Harper");
+        name(freeEmployee, "Paul", "Smith");
+        User deleted = user("gone@employee.com", busyEmployee.getRole());
+        name(deleted, "Harry", "Gone");
+        deleted.setIsDeleted(true);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        CursorPageDTO<UserDTO> first = userService.search(" HAR", null, 2);
+
+        // users and their roles in one query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(first.getData()).extracting(UserDTO::getUserName).containsExactly("busy@employee.com", "busy@manager.com");
+        assertThat(first.getData()).allMatch(user -> user.getRole() != null);
+
+        CursorPageDTO<UserDTO> second = userService.search("har", first.getNextCursor(), 2);
+
+        assertThat(second.getData()).extracting(UserDTO::getUserName).containsExactly("free@manager.com");
+        assertThat(second.getNextCursor()).isNull();
+
+        assertThat(userService.search("free@", null, 10).getData()).hasSize(2);
+        assertThat(userService.search("%", null, 10).getData()).isEmpty();
+        assertThat(userService.search(" ", null, 10).getData()).isEmpty();
+    }
+
+    @Test
+    void should_not_delete_employee_with_open_task() {
+        assertThatThrownBy(() -> userService.delete("busy@employee.com"))
+                .isInstanceOf(TicketingProjectException.class);
+    }
+
+    private User user(String userName, Role role) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassWord("Abc1");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private void name(User user, String firstName, String lastName) {
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+    }
+
+    private Project project(String code, Status status, User manager) {
+        Project project = new Project();
+        project.setProjectCode(code);
+        project.setProjectStatus(status);
+        project.setAssignedManager(manager);
+        return entityManager.persist(project);
+    }
+
+    private void task(Status status, Project project, User employee) {
+        Task task = new Task();
+        task.setTaskStatus(status);
+        task.setProject(project);
+        task.setAssignedEmployee(employee);
+        entityManager.persist(task);
+    }
+
+}
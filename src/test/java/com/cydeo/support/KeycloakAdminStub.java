@@ -0,0 +1,109 @@
+package com.cydeo.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Answers the few admin API calls KeycloakServiceImpl makes, so the admin client can be tested without a running keycloak.
+Every user gets the same id, tokens are valid for tokenLifespanSeconds.
+ */
+public class KeycloakAdminStub implements AutoCloseable {
+
+    private static final String USER_ID = "6f1c3a2e-0000-0000-0000-000000000001";
+    private static final String CLIENT_ID = "2b7e1c9a-0000-0000-0000-000000000002";
+
+    static {
+        // without it headers and body go out in separate packets and every call waits for a delayed ack
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int tokenLifespanSeconds;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger adminRequests = new AtomicInteger();
+
+    public KeycloakAdminStub(int tokenLifespanSeconds) throws IOException {
+        this.tokenLifespanSeconds = tokenLifespanSeconds;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.createContext("/realms/", this::token);
+        server.createContext("/admin/realms/", this::admin);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int getTokenRequests() {
+        return tokenRequests.get();
+    }
+
+    public int getAdminRequests() {
+        return adminRequests.get();
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        tokenRequests.incrementAndGet();
+        respond(exchange, 200, "{\"access_token\":\"token-" + tokenRequests.get() + "\",\"token_type\":\"Bearer\"," +
+                "\"expires_in\":" + tokenLifespanSeconds + ",\"refresh_expires_in\":" + (tokenLifespanSeconds * 2) + "," +
+                "\"refresh_token\":\"refresh-" + tokenRequests.get() + "\"}");
+    }
+
+    private void admin(HttpExchange exchange) throws IOException {
+        adminRequests.incrementAndGet();
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        if (method.equals("POST") && path.endsWith("/users")) {
+            exchange.getResponseHeaders().add("Location", getUrl() + path + "/" + USER_ID);
+            respond(exchange, 201, null);
+        } else if (method.equals("GET") && path.endsWith("/users")) {
+            respond(exchange, 200, "[{\"id\":\"" + USER_ID + "\",\"username\":\"user\"}]");
+        } else if (method.equals("GET") && path.endsWith("/clients")) {
+            respond(exchange, 200, "[{\"id\":\"" + CLIENT_ID + "\",\"clientId\":\"ticketing-app\"}]");
+        } else if (method.equals("GET") && path.contains("/roles/")) {
+            String role = path.substring(path.lastIndexOf('/') + 1);
+            respond(exchange, 200, "{\"id\":\"role-" + role + "\",\"name\":\"" + role + "\",\"clientRole\":true}");
+        } else {
+            // role mapping and delete
+            respond(exchange, 204, null);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        try (InputStream request = exchange.getRequestBody()) {
+            request.readAllBytes();
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.cydeo.support;
+
+import com.cydeo.config.SqlStatementCounter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/*
+Upper bounds on the sql of one MockMvc request, counted by SqlDiagnosticsFilter (it has to be in the MockMvc filters,
+@AutoConfigureMockMvc adds it). An n+1 shows up as a count that grows with the data:
+
+    mvc.perform(get("/api/v1/project").header("Authorization", token))
+            .andExpect(SqlStatements.atMost(3));
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    public static ResultMatcher atMost(long statements) {
+        return result -> {
+            SqlStatementCounter.Counts counts = counts(result.getRequest().getAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE));
+            if (counts.getStatements() > statements) {
+                throw new AssertionError("Expected at most " + statements + " SQL statements for " + result.getRequest().getMethod() + " "
+                        + result.getRequest().getRequestURI() + " but there were " + counts.getStatements());
+            }
+        };
+    }
+
+    public static ResultMatcher atMostEntities(long entities) {
+        return result -> {
+            SqlStatementCounter.Counts counts = counts(result.getRequest().getAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE));
+            if (counts.getLoadedEntities() > entities) {
+                throw new AssertionError("Expected at most " + entities + " loaded entities for " + result.getRequest().getMethod() + " "
+                        + result.getRequest().getRequestURI() + " but there were " + counts.getLoadedEntities());
+            }
+        };
+    }
+
+    private static SqlStatementCounter.Counts counts(Object attribute) {
+        if (attribute == null) {
+            throw new AssertionError("No SQL counts on the request, SqlDiagnosticsFilter is not in the MockMvc filters");
+        }
+        return (SqlStatementCounter.Counts) attribute;
+    }
+
+}